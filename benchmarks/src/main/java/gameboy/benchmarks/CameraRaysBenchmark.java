@@ -0,0 +1,86 @@
+package gameboy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.core.CameraRays;
+import gameboy.core.Renderer;
+import gameboy.utilities.GlobalSettings;
+import gameboy.utilities.Projection;
+import gameboy.utilities.Scene;
+import gameboy.utilities.math.RayPacket;
+
+/**
+ * Generating the primary rays of one 256x144 view into packets of
+ * {@code GlobalSettings.PACKET_SIZE} rays, projecting every pixel on its own
+ * through {@code Renderer.getPrimaryRay} against stepping through the rows with
+ * {@code CameraRays}. No ray is cast
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CameraRaysBenchmark {
+
+    private static final int WIDTH = 256;
+    private static final int HEIGHT = 144;
+
+    private Scene scene;
+    private Renderer renderer;
+    private RayPacket packet;
+    private int[] columns;
+
+    @Setup
+    public void setup() {
+        scene = Scenes.create(10, 1);
+        renderer = new Renderer(scene, WIDTH, HEIGHT);
+        packet = new RayPacket(GlobalSettings.PACKET_SIZE);
+        columns = new int[packet.getCapacity()];
+    }
+
+    @Benchmark
+    public double perPixel() {
+        double sum = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x += packet.getCapacity()) {
+                packet.reset(0, GlobalSettings.MAX_RENDER_DISTANCE);
+                for (int i = x; i < Math.min(x + packet.getCapacity(), WIDTH); i++) {
+                    double[] uv = renderer.getNormalizedScreenCoordinates(i, y, WIDTH, HEIGHT);
+                    packet.add(renderer.getPrimaryRay(uv[0], uv[1]));
+                }
+                sum += packet.dx[0];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double generator() {
+        CameraRays rays = new CameraRays(scene.getCurrentCamera(), Projection.ASPECT_FIT, WIDTH, HEIGHT);
+        double sum = 0;
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x += packet.getCapacity()) {
+                packet.reset(0, GlobalSettings.MAX_RENDER_DISTANCE);
+                int count = 0;
+                for (int i = x; i < Math.min(x + packet.getCapacity(), WIDTH); i++) {
+                    columns[count++] = i;
+                }
+                rays.emit(packet, columns, count, y);
+                sum += packet.dx[0];
+            }
+        }
+        return sum;
+    }
+}
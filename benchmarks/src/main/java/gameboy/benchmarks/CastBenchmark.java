@@ -0,0 +1,64 @@
+package gameboy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.utilities.Scene;
+import gameboy.utilities.data.BVH;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+
+/**
+ * Closest-hit {@code Ray.cast} and any-hit occlusion over scenes of growing size
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CastBenchmark {
+
+    @Param({
+            "10", "1000", "100000"
+    })
+    public int shapeCount;
+
+    private Scene scene;
+    private BVH bvh;
+    private Ray[] rays;
+    private int index;
+
+    @Setup
+    public void setup() {
+        scene = Scenes.create(shapeCount, 1);
+        bvh = scene.getBVH();
+        rays = Scenes.rays(1024);
+    }
+
+    private Ray nextRay() {
+        index = (index + 1) & (rays.length - 1);
+        return rays[index];
+    }
+
+    @Benchmark
+    public RayHit cast() {
+        return nextRay().cast(bvh);
+    }
+
+    @Benchmark
+    public Object findOccluder() {
+        return bvh.findOccluder(nextRay(), 0, 50, null);
+    }
+}
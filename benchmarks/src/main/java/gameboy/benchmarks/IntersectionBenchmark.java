@@ -0,0 +1,82 @@
+package gameboy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.geometries.Cone;
+import gameboy.geometries.Cube;
+import gameboy.geometries.Plane;
+import gameboy.geometries.Sphere;
+import gameboy.materials.BasicMaterial;
+import gameboy.utilities.Color;
+import gameboy.utilities.Shape;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Single ray against single shape, both through the interval API used by the
+ * tracer and through {@code getIntersectionPoint}
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntersectionBenchmark {
+
+    @Param({
+            "sphere", "plane", "cube", "cone"
+    })
+    public String shapeType;
+
+    private Shape shape;
+    private Ray[] rays;
+    private int index;
+
+    @Setup
+    public void setup() {
+        BasicMaterial material = new BasicMaterial(Color.WHITE);
+        Vector3 anchor = new Vector3(0, 0, 10);
+        switch (shapeType) {
+        case "sphere":
+            shape = new Sphere(anchor, material, 2);
+            break;
+        case "plane":
+            shape = new Plane(anchor, material, new Vector3(0, 1, 0));
+            break;
+        case "cube":
+            shape = new Cube(anchor, material, 3);
+            break;
+        default:
+            shape = new Cone(new Vector3(0, -2, 10), material, new Vector3(0, 1, 0), Math.toRadians(25), 4);
+        }
+        rays = Scenes.rays(1024);
+    }
+
+    private Ray nextRay() {
+        index = (index + 1) & (rays.length - 1);
+        return rays[index];
+    }
+
+    @Benchmark
+    public double intersect() {
+        return shape.intersect(nextRay(), 0, Double.POSITIVE_INFINITY);
+    }
+
+    @Benchmark
+    public Vector3 getIntersectionPoint() {
+        return shape.getIntersectionPoint(nextRay());
+    }
+}
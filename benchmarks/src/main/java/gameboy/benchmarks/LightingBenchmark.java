@@ -0,0 +1,93 @@
+package gameboy.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.lights.Lighting;
+import gameboy.lights.ShadowMaps;
+import gameboy.utilities.Scene;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+
+/**
+ * {@code Material.shade} for precomputed primary hits through the generic
+ * {@code Lighting}, which reads the light list for every hit, against a
+ * {@code Lighting} compiled for the lights of the scene. With shadow maps the
+ * shadow rays, which dominate the generic path, are left out
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LightingBenchmark {
+
+    @Param({
+            "1", "4", "16"
+    })
+    public int lightCount;
+
+    @Param({
+            "false", "true"
+    })
+    public boolean shadowMaps;
+
+    private Scene scene;
+    private RayHit[] hits;
+    private Lighting generic;
+    private Lighting compiled;
+    private final double[] radiance = new double[3];
+    private int index;
+
+    @Setup
+    public void setup() {
+        scene = Scenes.create(100, lightCount);
+        List<RayHit> found = new ArrayList<>();
+        for (Ray ray : Scenes.rays(4096)) {
+            RayHit hit = ray.cast(scene.getBVH());
+            if (hit != null)
+                found.add(hit);
+        }
+        hits = found.toArray(new RayHit[0]);
+
+        ShadowMaps maps = null;
+        if (shadowMaps) {
+            maps = new ShadowMaps(256);
+            maps.update(scene, ForkJoinPool.commonPool());
+        }
+        generic = Lighting.of(scene.getLights(), maps);
+        compiled = Lighting.compile(scene.getLights(), maps);
+    }
+
+    @Benchmark
+    public double[] generic() {
+        return shade(generic);
+    }
+
+    @Benchmark
+    public double[] compiled() {
+        return shade(compiled);
+    }
+
+    private double[] shade(Lighting lighting) {
+        index = index + 1 < hits.length ? index + 1 : 0;
+        RayHit hit = hits[index];
+        hit.getShape().getMaterial().shade(hit, scene, lighting, radiance);
+        return radiance;
+    }
+}
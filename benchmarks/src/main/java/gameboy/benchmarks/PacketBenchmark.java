@@ -0,0 +1,110 @@
+package gameboy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.core.CameraRays;
+import gameboy.utilities.GlobalSettings;
+import gameboy.utilities.Projection;
+import gameboy.utilities.Scene;
+import gameboy.utilities.data.BVH;
+import gameboy.utilities.math.PacketKernel;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+import gameboy.utilities.math.RayPacket;
+import gameboy.utilities.math.ScalarPacketKernel;
+
+/**
+ * Primary rays of one 256x144 view cast one by one against packets of
+ * {@code GlobalSettings.PACKET_SIZE} rays with the scalar and the Vector API
+ * kernel. The forked JVM adds {@code jdk.incubator.vector}, so this benchmark
+ * needs Java 17 or newer
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {
+        "--add-modules", "jdk.incubator.vector"
+})
+public class PacketBenchmark {
+
+    private static final int WIDTH = 256;
+    private static final int HEIGHT = 144;
+
+    @Param({
+            "ray", "scalar", "vector"
+    })
+    public String kernelType;
+
+    @Param({
+            "10", "1000"
+    })
+    public int shapeCount;
+
+    private BVH bvh;
+    private Ray[] rays;
+    private PacketKernel kernel;
+    private RayPacket packet;
+
+    @Setup
+    public void setup() {
+        Scene scene = Scenes.create(shapeCount, 1);
+        bvh = scene.getBVH();
+        CameraRays cameraRays = new CameraRays(scene.getCurrentCamera(), Projection.ASPECT_FIT, WIDTH, HEIGHT);
+        rays = new Ray[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                rays[y * WIDTH + x] = cameraRays.getRay(x, y);
+            }
+        }
+
+        if (kernelType.equals("vector")) {
+            kernel = PacketKernel.getVectorKernel();
+            if (kernel == null)
+                throw new IllegalStateException("Vector API not available");
+        }
+        else {
+            kernel = ScalarPacketKernel.INSTANCE;
+        }
+        packet = new RayPacket(GlobalSettings.PACKET_SIZE);
+    }
+
+    @Benchmark
+    public int castView() {
+        int hits = 0;
+        if (kernelType.equals("ray")) {
+            for (Ray ray : rays) {
+                RayHit hit = ray.cast(bvh, 0, GlobalSettings.MAX_RENDER_DISTANCE);
+                if (hit != null)
+                    hits++;
+            }
+            return hits;
+        }
+
+        for (int start = 0; start < rays.length; start += packet.getCapacity()) {
+            packet.reset(0, GlobalSettings.MAX_RENDER_DISTANCE);
+            for (int i = start; i < Math.min(start + packet.getCapacity(), rays.length); i++) {
+                packet.add(rays[i]);
+            }
+            bvh.cast(packet, kernel);
+            for (int i = 0; i < packet.size(); i++) {
+                if (packet.getHit(i) != null)
+                    hits++;
+            }
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,57 @@
+package gameboy.benchmarks;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.core.Renderer;
+import gameboy.utilities.Scene;
+
+/**
+ * Whole frames through {@code Renderer.render} at several output sizes
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    @Param({
+            "320x180", "1280x720", "1920x1080"
+    })
+    public String size;
+
+    @Param({
+            "1", "0.5"
+    })
+    public double resolution;
+
+    private Renderer renderer;
+    private BufferedImage frame;
+
+    @Setup
+    public void setup() {
+        String[] dimensions = size.split("x");
+        Scene scene = Scenes.create(30, 3);
+        renderer = new Renderer(scene, Integer.parseInt(dimensions[0]), Integer.parseInt(dimensions[1]));
+        frame = renderer.createFrame();
+    }
+
+    @Benchmark
+    public BufferedImage render() {
+        return renderer.render(resolution, frame);
+    }
+}
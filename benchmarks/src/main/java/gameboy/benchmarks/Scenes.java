@@ -0,0 +1,88 @@
+package gameboy.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import gameboy.geometries.Cone;
+import gameboy.geometries.Cube;
+import gameboy.geometries.Plane;
+import gameboy.geometries.Sphere;
+import gameboy.lights.Light;
+import gameboy.materials.BasicMaterial;
+import gameboy.materials.CheckerMaterial;
+import gameboy.materials.SphereMaterial;
+import gameboy.utilities.Camera;
+import gameboy.utilities.Color;
+import gameboy.utilities.Scene;
+import gameboy.utilities.Shape;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Deterministic scenes and rays shared by the benchmarks
+ */
+public class Scenes {
+
+    public static final long SEED = 42;
+
+    /**
+     * Creates a {@code Scene} with a checker floor and shapes randomly scattered
+     * in front of the camera
+     *
+     * @param shapeCount {@code int} number of shapes besides the floor
+     * @param lightCount {@code int} number of lights
+     * @return new {@code Scene}
+     */
+    public static Scene create(int shapeCount, int lightCount) {
+        Random random = new Random(SEED);
+        double spread = Math.max(10, Math.cbrt(shapeCount) * 4);
+
+        List<Shape> shapes = new ArrayList<>();
+        shapes.add(new Plane(new Vector3(0, -5, 0), new CheckerMaterial(Color.BLACK, Color.WHITE, 4),
+                new Vector3(0, 1, 0)));
+        for (int i = 0; i < shapeCount; i++) {
+            Vector3 position = new Vector3((random.nextDouble() - 0.5) * spread, random.nextDouble() * spread / 2 - 4,
+                    random.nextDouble() * spread);
+            double size = 0.5 + random.nextDouble();
+            switch (i % 3) {
+            case 0:
+                shapes.add(new Sphere(position, new SphereMaterial(), size));
+                break;
+            case 1:
+                shapes.add(new Cube(position, new BasicMaterial(Color.RED), size));
+                break;
+            default:
+                shapes.add(new Cone(position, new BasicMaterial(Color.GREEN), new Vector3(0, 1, 0),
+                        Math.toRadians(20), size * 2));
+            }
+        }
+
+        List<Light> lights = new ArrayList<>();
+        for (int i = 0; i < lightCount; i++) {
+            lights.add(new Light(new Vector3((random.nextDouble() - 0.5) * spread, 10 + random.nextDouble() * 5,
+                    (random.nextDouble() - 0.5) * spread), new Color(255, 255, 255)));
+        }
+
+        List<Camera> cameras = new ArrayList<>();
+        cameras.add(new Camera(new Vector3(0, 2, -10), Math.toRadians(40)));
+        return new Scene(cameras, shapes, lights);
+    }
+
+    /**
+     * Creates rays leaving the default camera position in random directions
+     * within its field of view
+     *
+     * @param count {@code int} number of rays
+     * @return new {@code Ray[]}
+     */
+    public static Ray[] rays(int count) {
+        Random random = new Random(SEED + 1);
+        Ray[] rays = new Ray[count];
+        for (int i = 0; i < count; i++) {
+            rays[i] = new Ray(new Vector3(0, 2, -10),
+                    new Vector3(random.nextDouble() - 0.5, random.nextDouble() * 0.5 - 0.4, 1));
+        }
+        return rays;
+    }
+}
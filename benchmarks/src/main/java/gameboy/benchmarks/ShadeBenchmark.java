@@ -0,0 +1,63 @@
+package gameboy.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.utilities.Color;
+import gameboy.utilities.Scene;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+
+/**
+ * {@code Material.shade} for precomputed primary hits with a growing number of
+ * lights, including the shadow and reflection rays it casts
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShadeBenchmark {
+
+    @Param({
+            "1", "4", "16", "64"
+    })
+    public int lightCount;
+
+    private Scene scene;
+    private RayHit[] hits;
+    private int index;
+
+    @Setup
+    public void setup() {
+        scene = Scenes.create(100, lightCount);
+        List<RayHit> found = new ArrayList<>();
+        for (Ray ray : Scenes.rays(4096)) {
+            RayHit hit = ray.cast(scene.getBVH());
+            if (hit != null)
+                found.add(hit);
+        }
+        hits = found.toArray(new RayHit[0]);
+    }
+
+    @Benchmark
+    public Color shade() {
+        index = index + 1 < hits.length ? index + 1 : 0;
+        RayHit hit = hits[index];
+        return hit.getShape().getMaterial().shade(hit, scene);
+    }
+}
@@ -0,0 +1,69 @@
+package gameboy.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import gameboy.geometries.Sphere;
+import gameboy.utilities.Scene;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Taking the {@code Scene} snapshot of one frame after the camera moved, after
+ * one shape was resized and after the scene was invalidated, which copies every
+ * shape and builds a new {@code BVH} like a snapshot without structure sharing
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    @Param({
+            "100", "10000"
+    })
+    public int shapeCount;
+
+    private Scene scene;
+    private Sphere sphere;
+    private final Vector3 step = new Vector3(1e-3, 0, 0);
+    private int frame;
+
+    @Setup
+    public void setup() {
+        scene = Scenes.create(shapeCount, 4);
+        // Index 0 is the floor, every third shape after it is a sphere
+        sphere = (Sphere) scene.getShapes().get(1);
+        scene.snapshot();
+    }
+
+    @Benchmark
+    public Scene cameraMoved() {
+        scene.getCurrentCamera().translate(step);
+        return scene.snapshot();
+    }
+
+    @Benchmark
+    public Scene shapeResized() {
+        sphere.setRadius(1 + (frame++ & 7) * 0.01);
+        return scene.snapshot();
+    }
+
+    @Benchmark
+    public Scene invalidated() {
+        scene.invalidate();
+        return scene.snapshot();
+    }
+}
@@ -0,0 +1,163 @@
+package gameboy;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import gameboy.core.Interpreter;
+import gameboy.core.Renderer;
+import gameboy.core.output.StripWriter;
+import gameboy.utilities.Scene;
+
+/**
+ * Renders scene files written for the {@link Interpreter} to images without
+ * opening any window, e.g.
+ * {@code java -cp target/classes gameboy.BatchRenderer -s 1920x1080 -o out scene.txt}
+ */
+public class BatchRenderer {
+
+    private static final String USAGE = "Usage: BatchRenderer [options] <scene file>...\n"
+            + "  -s, --size <w>x<h>   image size (default 1920x1080)\n"
+            + "  -c, --camera <n>     index of the camera to render from (default 0)\n"
+            + "  -o, --output <path>  image file for a single scene, otherwise a directory;\n"
+            + "                       .png and .ppm are written strip by strip\n"
+            + "                       (default: scene file name with .png, next to it)\n"
+            + "  -j, --jobs <n>       scenes rendered at the same time (default 1)";
+
+    private int width = 1920;
+    private int height = 1080;
+    private int camera = 0;
+    private int jobs = 1;
+    private File output;
+    private List<File> sceneFiles = new ArrayList<>();
+
+    /**
+     * Only created by {@link #main(String[])} from the command line arguments
+     */
+    private BatchRenderer() {
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+
+        BatchRenderer batch = new BatchRenderer();
+        try {
+            batch.parseArguments(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        System.exit(batch.run() ? 0 : 1);
+    }
+
+    private void parseArguments(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("-")) {
+                sceneFiles.add(new File(arg));
+                continue;
+            }
+            if (i + 1 >= args.length)
+                throw new IllegalArgumentException("Missing value for " + arg);
+            String value = args[++i];
+            try {
+                switch (arg) {
+                case "-s":
+                case "--size":
+                    String[] size = value.toLowerCase(Locale.ROOT).split("x");
+                    width = Integer.parseInt(size[0]);
+                    height = Integer.parseInt(size[1]);
+                    break;
+                case "-c":
+                case "--camera":
+                    camera = Integer.parseInt(value);
+                    break;
+                case "-o":
+                case "--output":
+                    output = new File(value);
+                    break;
+                case "-j":
+                case "--jobs":
+                    jobs = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + arg);
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Invalid value for " + arg + ": " + value);
+            }
+        }
+        if (sceneFiles.isEmpty())
+            throw new IllegalArgumentException("No scene file given");
+        if (width < 1 || height < 1 || jobs < 1)
+            throw new IllegalArgumentException("Size and jobs have to be positive");
+    }
+
+    /**
+     * Renders all scene files, printing one line per finished job
+     *
+     * @return {@code true} if every job succeeded
+     */
+    private boolean run() {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(jobs, sceneFiles.size()));
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (File sceneFile : sceneFiles) {
+            File imageFile = getImageFile(sceneFile);
+            results.add(executor.submit(() -> render(sceneFile, imageFile)));
+        }
+        executor.shutdown();
+
+        boolean success = true;
+        for (Future<Boolean> result : results) {
+            try {
+                success &= result.get();
+            } catch (Exception e) {
+                e.printStackTrace();
+                success = false;
+            }
+        }
+        return success;
+    }
+
+    private File getImageFile(File sceneFile) {
+        String name = sceneFile.getName();
+        name = (name.lastIndexOf('.') > 0 ? name.substring(0, name.lastIndexOf('.')) : name) + ".png";
+        if (output == null)
+            return new File(sceneFile.getAbsoluteFile().getParentFile(), name);
+        if (sceneFiles.size() == 1 && !output.isDirectory())
+            return output;
+        output.mkdirs();
+        return new File(output, name);
+    }
+
+    private boolean render(File sceneFile, File imageFile) {
+        try {
+            Scene scene = new Interpreter().interpret(Files.readString(sceneFile.toPath()));
+            if (scene.getCameras().isEmpty())
+                throw new IllegalArgumentException("Scene has no camera");
+            scene.setCurrentCamera(camera);
+
+            long start = System.nanoTime();
+            Renderer renderer = new Renderer(scene, width, height);
+            if (StripWriter.supports(imageFile))
+                renderer.renderToFile(scene, width, height, imageFile);
+            else
+                renderer.renderToImage(scene, width, height, imageFile);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf(Locale.ROOT, "%s -> %s: %dx%d in %.3f s, %.0f primary rays/s%n", sceneFile, imageFile,
+                    width, height, seconds, width * (double) height / seconds);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println(sceneFile + ": " + e);
+            return false;
+        }
+    }
+}
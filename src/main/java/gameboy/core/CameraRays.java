@@ -0,0 +1,178 @@
+package gameboy.core;
+
+import gameboy.utilities.Camera;
+import gameboy.utilities.Projection;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayPacket;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Generates the primary rays of one frame. The {@code Projection} of the
+ * {@code Camera} is set up once, after which the ray of any pixel is a few
+ * multiply-adds away, without trigonometry. Also projects points
+ * back to the pixel whose ray passes through them, which
+ * {@code TemporalCache} reprojects its samples with
+ */
+public class CameraRays {
+
+    private final int width, height;
+    private final double ox, oy, oz, oxx, oxy, oxz, oyx, oyy, oyz;
+    private final double dx, dy, dz, dxx, dxy, dxz, dyx, dyy, dyz;
+    /** Rays share their direction instead of their origin */
+    private final boolean parallel;
+    /** Inverse of the matrix mapping the unknowns of {@link #project} to points */
+    private final double[] inverse = new double[9];
+    private final boolean invertible;
+
+    /**
+     * @param camera     {@code Camera} the rays start from
+     * @param projection {@code Projection} of the frame
+     * @param width      {@code int} width of the frame in pixels
+     * @param height     {@code int} height of the frame in pixels
+     */
+    public CameraRays(Camera camera, Projection projection, int width, int height) {
+        this.width = width;
+        this.height = height;
+        double[] frame = new double[Projection.FRAME_LENGTH];
+        projection.frame(camera, width, height, frame);
+        ox = frame[Projection.ORIGIN];
+        oy = frame[Projection.ORIGIN + 1];
+        oz = frame[Projection.ORIGIN + 2];
+        oxx = frame[Projection.ORIGIN_X];
+        oxy = frame[Projection.ORIGIN_X + 1];
+        oxz = frame[Projection.ORIGIN_X + 2];
+        oyx = frame[Projection.ORIGIN_Y];
+        oyy = frame[Projection.ORIGIN_Y + 1];
+        oyz = frame[Projection.ORIGIN_Y + 2];
+        dx = frame[Projection.DIRECTION];
+        dy = frame[Projection.DIRECTION + 1];
+        dz = frame[Projection.DIRECTION + 2];
+        dxx = frame[Projection.DIRECTION_X];
+        dxy = frame[Projection.DIRECTION_X + 1];
+        dxz = frame[Projection.DIRECTION_X + 2];
+        dyx = frame[Projection.DIRECTION_Y];
+        dyy = frame[Projection.DIRECTION_Y + 1];
+        dyz = frame[Projection.DIRECTION_Y + 2];
+        parallel = dxx == 0 && dxy == 0 && dxz == 0 && dyx == 0 && dyy == 0 && dyz == 0;
+
+        // A point p = origin + s * direction is solved for (s, s * x, s * y) if the
+        // rays share their origin, else for (x, y, s)
+        invertible = parallel ? invert(oxx, oyx, dx, oxy, oyy, dy, oxz, oyz, dz)
+                : invert(dx, dxx, dyx, dy, dxy, dyy, dz, dxz, dyz);
+    }
+
+    private boolean invert(double a, double b, double c, double d, double e, double f, double g, double h,
+            double i) {
+        double determinant = a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+        if (determinant == 0 || Double.isNaN(determinant))
+            return false;
+        double scale = 1 / determinant;
+        inverse[0] = (e * i - f * h) * scale;
+        inverse[1] = (c * h - b * i) * scale;
+        inverse[2] = (b * f - c * e) * scale;
+        inverse[3] = (f * g - d * i) * scale;
+        inverse[4] = (a * i - c * g) * scale;
+        inverse[5] = (c * d - a * f) * scale;
+        inverse[6] = (d * h - e * g) * scale;
+        inverse[7] = (b * g - a * h) * scale;
+        inverse[8] = (a * e - b * d) * scale;
+        return true;
+    }
+
+    /**
+     * Gets the primary {@code Ray} of the pixel at x, y
+     *
+     * @return {@code Ray} with normalized direction
+     */
+    public Ray getRay(double x, double y) {
+        // Sums in the order of emit, row first, so both give the same rays
+        return new Ray(new Vector3(ox + oyx * y + oxx * x, oy + oyy * y + oxy * x, oz + oyz * y + oxz * x),
+                new Vector3(dx + dyx * y + dxx * x, dy + dyy * y + dxy * x, dz + dyz * y + dxz * x));
+    }
+
+    /**
+     * Adds the primary rays of the first count pixels of {@code int[]} columns
+     * in row y to {@code RayPacket} packet, straight into its component arrays.
+     * The ray of the row is computed once and stepped to each column
+     *
+     * @param packet  {@code RayPacket} to be filled, rays are added in order
+     * @param columns {@code int[]} x coordinates of the pixels
+     * @param count   {@code int} number of pixels
+     * @param y       {@code int} row of the pixels
+     */
+    public void emit(RayPacket packet, int[] columns, int count, int y) {
+        double rowX = ox + oyx * y, rowY = oy + oyy * y, rowZ = oz + oyz * y;
+        double rowDx = dx + dyx * y, rowDy = dy + dyy * y, rowDz = dz + dyz * y;
+        for (int i = 0; i < count; i++) {
+            int x = columns[i];
+            double directionX = rowDx + dxx * x, directionY = rowDy + dxy * x, directionZ = rowDz + dxz * x;
+            // Divides like Vector3.normalize, so packets trace the same rays as getRay
+            double magnitude = Math.sqrt(directionX * directionX + directionY * directionY
+                    + directionZ * directionZ);
+            packet.add(rowX + oxx * x, rowY + oxy * x, rowZ + oxz * x, directionX / magnitude,
+                    directionY / magnitude, directionZ / magnitude);
+        }
+    }
+
+    /**
+     * Projects the point px, py, pz to the pixel whose primary ray passes
+     * through it, writing its x and y coordinates to {@code out[0]} and
+     * {@code out[1]}, the distance of the point from the ray origin to
+     * {@code out[2]} and the vector from the ray origin to the point to
+     * {@code out[3]} to {@code out[5]}. Pixels outside of the frame are not
+     * clipped
+     *
+     * @param out {@code double[]} of at least 6 elements
+     * @return {@code false} if the point lies behind the camera
+     */
+    public boolean project(double px, double py, double pz, double[] out) {
+        if (!invertible)
+            return false;
+        double rx = px - ox, ry = py - oy, rz = pz - oz;
+        double a = inverse[0] * rx + inverse[1] * ry + inverse[2] * rz;
+        double b = inverse[3] * rx + inverse[4] * ry + inverse[5] * rz;
+        double c = inverse[6] * rx + inverse[7] * ry + inverse[8] * rz;
+        if (parallel) {
+            if (c <= 0)
+                return false;
+            out[0] = a;
+            out[1] = b;
+            out[3] = dx * c;
+            out[4] = dy * c;
+            out[5] = dz * c;
+        }
+        else {
+            if (a <= 0)
+                return false;
+            out[0] = b / a;
+            out[1] = c / a;
+            out[3] = rx;
+            out[4] = ry;
+            out[5] = rz;
+        }
+        out[2] = Math.sqrt(out[3] * out[3] + out[4] * out[4] + out[5] * out[5]);
+        return true;
+    }
+
+    /**
+     * Gets the origin of the primary ray passing through the point px, py, pz,
+     * see {@link #project(double, double, double, double[])}
+     *
+     * @return {@code Vector3} origin
+     */
+    public Vector3 getOrigin(double px, double py, double pz) {
+        if (!parallel)
+            return new Vector3(ox, oy, oz);
+        double rx = px - ox, ry = py - oy, rz = pz - oz;
+        double s = inverse[6] * rx + inverse[7] * ry + inverse[8] * rz;
+        return new Vector3(px - dx * s, py - dy * s, pz - dz * s);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
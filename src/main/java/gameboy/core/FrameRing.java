@@ -0,0 +1,113 @@
+package gameboy.core;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Ring of reusable frame buffers shared by the render thread and the EDT. The
+ * render thread draws into a buffer that is neither on screen nor waiting to be
+ * shown, so the next frame can be rendered while the last one is presented
+ * without tearing.
+ */
+public class FrameRing {
+
+    private final BufferedImage[] frames;
+    private final int[] widths;
+    private final int[] heights;
+    private int displayed = -1;
+    private int pending = -1;
+
+    public FrameRing(Renderer renderer, int size) {
+        frames = new BufferedImage[Math.max(3, size)];
+        widths = new int[frames.length];
+        heights = new int[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = renderer.createFrame();
+        }
+    }
+
+    public int getWidth() {
+        return frames[0].getWidth();
+    }
+
+    public int getHeight() {
+        return frames[0].getHeight();
+    }
+
+    /**
+     * Gets a {@code BufferedImage} that may be rendered into, called by the render
+     * thread
+     *
+     * @return free {@code BufferedImage}
+     */
+    public synchronized BufferedImage acquire() {
+        for (int i = 0; i < frames.length; i++) {
+            if (i != displayed && i != pending)
+                return frames[i];
+        }
+        throw new IllegalStateException("No free frame buffer");
+    }
+
+    /**
+     * Hands a finished {@code BufferedImage} from {@link #acquire()} over to be
+     * shown by the next {@link #present()}
+     *
+     * @param frame finished {@code BufferedImage}
+     */
+    public void publish(BufferedImage frame) {
+        publish(frame, frame.getWidth(), frame.getHeight());
+    }
+
+    /**
+     * Hands a {@code BufferedImage} from {@link #acquire()} over to be shown by the
+     * next {@link #present()}, of which only the top left width x height pixels
+     * were rendered
+     * 
+     * @param frame  finished {@code BufferedImage}
+     * @param width  {@code int} rendered width
+     * @param height {@code int} rendered height
+     */
+    public synchronized void publish(BufferedImage frame, int width, int height) {
+        for (int i = 0; i < frames.length; i++) {
+            if (frames[i] == frame) {
+                pending = i;
+                widths[i] = width;
+                heights[i] = height;
+            }
+        }
+    }
+
+    /**
+     * Gets the newest published {@code BufferedImage}, called by the EDT when
+     * painting. The returned buffer is not handed out by {@link #acquire()} until
+     * a newer one is presented
+     *
+     * @return newest {@code BufferedImage}, {@code null} if none was published
+     */
+    public synchronized BufferedImage present() {
+        if (pending >= 0) {
+            displayed = pending;
+            pending = -1;
+        }
+        return displayed >= 0 ? frames[displayed] : null;
+    }
+
+    /**
+     * Gets {@code int} rendered width of the {@code BufferedImage} last returned
+     * by {@link #present()}
+     * 
+     * @return {@code int} width in pixels
+     */
+    public synchronized int getPresentedWidth() {
+        return displayed >= 0 ? widths[displayed] : 0;
+    }
+
+    /**
+     * Gets {@code int} rendered height of the {@code BufferedImage} last returned
+     * by {@link #present()}
+     * 
+     * @return {@code int} height in pixels
+     */
+    public synchronized int getPresentedHeight() {
+        return displayed >= 0 ? heights[displayed] : 0;
+    }
+}
@@ -185,7 +185,7 @@ public class Interpreter {
 			double emission, double shininess) {
 		Materials finalMat = Materials.BASIC;
 		for (Materials material : Materials.MATERIALS) {
-			if (matString.equals(material.getPropertystring())) {
+			if (material.getPropertystring().equals(matString)) {
 				finalMat = material;
 			}
 		}
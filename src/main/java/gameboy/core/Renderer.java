@@ -3,64 +3,593 @@ package gameboy.core;
 import java.awt.Desktop;
 import gameboy.utilities.GlobalSettings;
 
-import java.awt.Graphics;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import javax.imageio.ImageIO;
 
+import gameboy.core.output.StripWriter;
+import gameboy.lights.Lighting;
+import gameboy.lights.ShadowMaps;
 import gameboy.utilities.Camera;
+import gameboy.utilities.Projection;
 import gameboy.utilities.Scene;
+import gameboy.utilities.data.BVH;
+import gameboy.utilities.data.GBuffer;
+import gameboy.utilities.data.PixelBuffer;
 import gameboy.utilities.data.PixelData;
+import gameboy.utilities.math.PacketKernel;
 import gameboy.utilities.math.Ray;
 import gameboy.utilities.math.RayHit;
+import gameboy.utilities.math.RayPacket;
 import gameboy.utilities.math.Vector3;
 
 public class Renderer {
 
+    private static final ThreadLocal<RayPacket> PACKETS = ThreadLocal
+            .withInitial(() -> new RayPacket(GlobalSettings.PACKET_SIZE));
+    /** Columns of the pixels in the packet of the current thread */
+    private static final ThreadLocal<int[]> COLUMNS = ThreadLocal
+            .withInitial(() -> new int[PACKETS.get().getCapacity()]);
+    private static final ThreadLocal<double[]> RADIANCE = ThreadLocal.withInitial(() -> new double[3]);
+
+    private static ForkJoinPool defaultPool;
+
     Scene scene;
     int height;
     int width;
+    ForkJoinPool pool;
+    BufferedImage frame;
+    Projection projection = GlobalSettings.PROJECTION;
+    CameraRays cameraRays;
+    PacketKernel packetKernel = GlobalSettings.PACKET_TRACING ? PacketKernel.getDefault() : null;
+    ShadowMaps shadowMaps;
+    boolean specializedShading = GlobalSettings.SPECIALIZED_SHADING;
+    Lighting lighting;
+    private int lightingVersion;
+    private ShadowMaps lightingShadows;
+    private boolean lightingCompiled;
+    TemporalCache temporalCache;
+    TemporalCache frameCache;
+    boolean deferredShading;
+    GBuffer gBuffer;
+    GBuffer frameGBuffer;
+    PixelBuffer buffer;
+    PixelBuffer refinement;
+    int refinedBlockSize;
 
     public Renderer(Scene scene, int width, int height) {
+        this(scene, width, height, getDefaultPool());
+    }
+
+    public Renderer(Scene scene, int width, int height, ForkJoinPool pool) {
         this.scene = scene;
         this.height = height;
         this.width = width;
+        this.pool = pool;
+    }
+
+    /**
+     * Gets the shared {@code ForkJoinPool} used by renderers that were not given
+     * one, sized by {@code GlobalSettings.RENDER_THREADS}
+     * 
+     * @return shared render {@code ForkJoinPool}
+     */
+    public static synchronized ForkJoinPool getDefaultPool() {
+        if (defaultPool == null)
+            defaultPool = new ForkJoinPool(GlobalSettings.RENDER_THREADS);
+        return defaultPool;
+    }
+
+    /**
+     * Sets the {@code Scene} to be rendered, usually the latest snapshot of the
+     * {@code Scene} that is being edited, see {@link Scene#snapshot()}. Anything
+     * cached from the last {@code Scene} is checked against it before the next
+     * frame
+     * 
+     * @param scene {@code Scene} to be rendered
+     */
+    public void setScene(Scene scene) {
+        this.scene = scene;
+    }
+
+    public Scene getScene() {
+        return scene;
+    }
+
+    /**
+     * Sets the {@code PacketKernel} primary rays are cast in packets with, see
+     * {@code GlobalSettings.PACKET_TRACING}
+     * 
+     * @param packetKernel {@code PacketKernel}, {@code null} casts every ray on
+     *                     its own
+     */
+    public void setPacketKernel(PacketKernel packetKernel) {
+        this.packetKernel = packetKernel;
+    }
+
+    public PacketKernel getPacketKernel() {
+        return packetKernel;
+    }
+
+    /**
+     * Sets the {@code Projection} primary rays are generated with, see
+     * {@code GlobalSettings.PROJECTION}. Restarts a progressive render and drops
+     * the hits and samples of earlier frames if it changed
+     * 
+     * @param projection {@code Projection} of the camera
+     */
+    public void setProjection(Projection projection) {
+        if (projection == this.projection)
+            return;
+        this.projection = projection;
+        gBuffer = null;
+        if (temporalCache != null)
+            temporalCache.clear();
+        resetRefinement();
+    }
+
+    public Projection getProjection() {
+        return projection;
+    }
+
+    /**
+     * Sets the {@code ShadowMaps} shadows are looked up in instead of being traced,
+     * see {@code GlobalSettings.SHADOW_MAPS}. The maps are brought up to date
+     * before every frame
+     * 
+     * @param shadowMaps {@code ShadowMaps}, {@code null} traces a shadow ray per
+     *                   light
+     */
+    public void setShadowMaps(ShadowMaps shadowMaps) {
+        this.shadowMaps = shadowMaps;
+    }
+
+    public ShadowMaps getShadowMaps() {
+        return shadowMaps;
+    }
+
+    /**
+     * Sets the {@code TemporalCache} the first pass of every frame reuses samples
+     * of the previous frame from, see {@code GlobalSettings.TEMPORAL_REPROJECTION}
+     * 
+     * @param temporalCache {@code TemporalCache}, {@code null} traces every
+     *                      sample
+     */
+    public void setTemporalCache(TemporalCache temporalCache) {
+        this.temporalCache = temporalCache;
+    }
+
+    public TemporalCache getTemporalCache() {
+        return temporalCache;
+    }
+
+    /**
+     * Sets whether the primary hits of every traced pixel are kept in a
+     * {@code GBuffer}, so that later frames with the same camera and geometry
+     * only shade them again, see {@code GlobalSettings.DEFERRED_SHADING}
+     * 
+     * @param deferredShading {@code boolean} deferred shading
+     */
+    public void setDeferredShading(boolean deferredShading) {
+        this.deferredShading = deferredShading;
+        if (!deferredShading)
+            gBuffer = null;
+    }
+
+    public boolean isDeferredShading() {
+        return deferredShading;
+    }
+
+    /**
+     * Sets whether shading uses a {@code Lighting} compiled for the current
+     * lights of the {@code Scene}, which is compiled again whenever the
+     * {@code Scene} changed, see {@code GlobalSettings.SPECIALIZED_SHADING}
+     * 
+     * @param specializedShading {@code boolean} specialised shading
+     */
+    public void setSpecializedShading(boolean specializedShading) {
+        this.specializedShading = specializedShading;
+        lighting = null;
+    }
+
+    public boolean isSpecializedShading() {
+        return specializedShading;
+    }
+
+    /**
+     * Checks whether the next frame can shade the primary hits of earlier frames
+     * again instead of tracing them, because neither the camera nor the geometry
+     * changed since
+     * 
+     * @return {@code true} if the {@code GBuffer} is still valid
+     */
+    public boolean canReshade() {
+        return gBuffer != null && gBuffer.matches(scene);
     }
 
     public BufferedImage render(double resolution) {
-        BufferedImage temp = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
-        Graphics gfx = temp.getGraphics();
+        if (frame == null)
+            frame = createFrame();
+        return render(resolution, frame);
+    }
+
+    /**
+     * Renders into the top left corner of {@code BufferedImage} target, which has
+     * to be of type {@code TYPE_INT_RGB} and at least the size of this
+     * {@code Renderer}, see {@link #createFrame()}. The frame is shaded into a
+     * {@code PixelBuffer} first, which is then tonemapped into target in a second
+     * parallel pass
+     * 
+     * @param resolution {@code double} resolution, 1 traces every pixel
+     * @param target     {@code BufferedImage} to render into
+     * @return {@code BufferedImage} target
+     */
+    public BufferedImage render(double resolution, BufferedImage target) {
+        int[] pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
         int blockSize = (int) (1 / resolution);
+        if (buffer == null)
+            buffer = new PixelBuffer(width, height);
+        prepareShading();
 
-        for (int y = 0; y < height; y += blockSize) {
-            for (int x = 0; x < width; x += blockSize) {
-                double[] screenUV = getNormalizedScreenCoordinates(x, y, width, height);
-                PixelData pixelData = getPixelData(screenUV[0], screenUV[1]);
-                gfx.setColor(GlobalSettings.SKY_BOX_COLOR.toAWT());
-                if (pixelData != null) {
-                    gfx.setColor(pixelData.getColor().toAWT());
+        invokeFrame(new TileTask(this, buffer, blockSize), blockSize, true);
+        pool.invoke(new TonemapTask(buffer, pixels, target.getWidth()));
+
+        return target;
+    }
+
+    /**
+     * Renders the next pass of a progressive render into {@code BufferedImage}
+     * target. The first pass after {@link #resetRefinement()} traces at
+     * coarseBlockSize, every further pass halves the block size and only traces
+     * the pixels the previous passes did not cover, until every pixel is traced
+     * 
+     * @param coarseBlockSize {@code int} block size of the first pass
+     * @param target          {@code BufferedImage} to render into, see
+     *                        {@link #render(double, BufferedImage)}
+     * @return {@code BufferedImage} target
+     */
+    public BufferedImage refine(int coarseBlockSize, BufferedImage target) {
+        if (refinement == null)
+            refinement = new PixelBuffer(width, height);
+        prepareShading();
+
+        if (refinedBlockSize == 0) {
+            refinedBlockSize = Math.max(1, coarseBlockSize);
+            invokeFrame(new TileTask(this, refinement, refinedBlockSize), refinedBlockSize, true);
+        }
+        else if (refinedBlockSize > 1) {
+            int blockSize = refinedBlockSize / 2;
+            invokeFrame(new TileTask(this, refinement, blockSize, refinedBlockSize), blockSize, false);
+            refinedBlockSize = blockSize;
+        }
+
+        int[] pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+        pool.invoke(new TonemapTask(refinement, pixels, target.getWidth()));
+        return target;
+    }
+
+    /**
+     * Brings the {@code ShadowMaps} up to date and picks the {@code Lighting}
+     * of the frame, has to be called before tiles are shaded. A specialised
+     * {@code Lighting} is only compiled once the {@code Scene} did not change for
+     * a frame, as every compiled class has to be optimised by the JIT compiler
+     * again, which would slow down frames while lights are being dragged
+     */
+    private void prepareShading() {
+        if (shadowMaps != null)
+            shadowMaps.update(scene, pool);
+        if (lighting != null && lightingVersion == scene.getVersion() && lightingShadows == shadowMaps
+                && (lightingCompiled || !specializedShading))
+            return;
+
+        boolean stable = lighting != null && lightingVersion == scene.getVersion() && lightingShadows == shadowMaps;
+        lightingCompiled = specializedShading && stable;
+        lighting = lightingCompiled ? Lighting.compile(scene.getLights(), shadowMaps)
+                : Lighting.of(scene.getLights(), shadowMaps);
+        lightingVersion = scene.getVersion();
+        lightingShadows = shadowMaps;
+    }
+
+    /**
+     * Runs a pass of a frame, reading primary hits from the {@code GBuffer} if
+     * deferred shading is on, and reusing samples of the last frame in the first
+     * pass if a {@code TemporalCache} is set
+     */
+    private void invokeFrame(TileTask task, int blockSize, boolean firstPass) {
+        cameraRays = new CameraRays(scene.getCurrentCamera(), projection, width, height);
+        if (deferredShading) {
+            if (gBuffer == null)
+                gBuffer = new GBuffer(width, height);
+            gBuffer.validate(scene);
+            frameGBuffer = gBuffer;
+        }
+        TemporalCache cache = firstPass ? temporalCache : null;
+        if (cache != null) {
+            cache.beginFrame(scene, cameraRays, Math.max(1, blockSize));
+            frameCache = cache;
+        }
+        try {
+            pool.invoke(task);
+        } finally {
+            frameCache = null;
+            frameGBuffer = null;
+        }
+    }
+
+    /**
+     * Discards the progressive render, has to be called when the camera or the
+     * {@code Scene} changed
+     */
+    public void resetRefinement() {
+        refinedBlockSize = 0;
+    }
+
+    /**
+     * Checks whether the progressive render has traced every pixel, see
+     * {@link #refine(int, BufferedImage)}
+     * 
+     * @return {@code true} if nothing is left to refine
+     */
+    public boolean isRefined() {
+        return refinedBlockSize == 1;
+    }
+
+    /**
+     * Changes the size of the image this {@code Renderer} renders, keeping its
+     * buffers where possible. A progressive render is restarted and the samples
+     * of earlier frames are dropped if the size changed
+     * 
+     * @param width  {@code int} width in pixels
+     * @param height {@code int} height in pixels
+     */
+    public void setSize(int width, int height) {
+        if (width == this.width && height == this.height)
+            return;
+        this.width = width;
+        this.height = height;
+        frame = null;
+        buffer = null;
+        refinement = null;
+        gBuffer = null;
+        if (temporalCache != null)
+            temporalCache.clear();
+        resetRefinement();
+    }
+
+    public BufferedImage createFrame() {
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    void renderTile(PixelBuffer buffer, int originY, int x0, int y0, int x1, int y1, int blockSize, int skipSize) {
+        if (packetKernel != null) {
+            renderTilePackets(buffer, originY, x0, y0, x1, y1, blockSize, skipSize);
+            return;
+        }
+        double[] radiance = RADIANCE.get();
+        BVH objects = scene.getBVH();
+        CameraRays rays = cameraRays;
+        TemporalCache cache = frameCache;
+        GBuffer hits = frameGBuffer;
+        for (int y = y0; y < y1; y += blockSize) {
+            boolean skipRow = skipSize > 0 && y % skipSize == 0;
+            for (int x = x0; x < x1; x += blockSize) {
+                if (skipRow && x % skipSize == 0)
+                    continue;
+                if (hits != null && hits.contains(x, y)) {
+                    RayHit hit = hits.getHit(x, y);
+                    shade(hit, radiance);
+                    if (cache != null)
+                        cache.store(x, y, hit, radiance);
                 }
-                gfx.fillRect(x, y, blockSize, blockSize);
+                else if (cache == null || !cache.reuse(x, y, objects, radiance)) {
+                    RayHit hit = rays.getRay(x, y).cast(objects, 0, GlobalSettings.MAX_RENDER_DISTANCE);
+                    if (hits != null)
+                        hits.put(x, y, hit);
+                    shade(hit, radiance);
+                    if (cache != null)
+                        cache.store(x, y, hit, radiance);
+                }
+                fillBlock(buffer, originY, x, y, Math.min(x + blockSize, x1), Math.min(y + blockSize, y1), radiance);
             }
         }
+    }
 
-        return temp;
+    /**
+     * Same as the per-ray path of
+     * {@link #renderTile(PixelBuffer, int, int, int, int, int, int, int)}, but
+     * casts the primary rays of each row in packets through the
+     * {@code PacketKernel}. The pixels of a packet are collected first and their
+     * rays emitted together by {@code CameraRays}
+     */
+    private void renderTilePackets(PixelBuffer buffer, int originY, int x0, int y0, int x1, int y1, int blockSize,
+            int skipSize) {
+        double[] radiance = RADIANCE.get();
+        RayPacket packet = PACKETS.get();
+        int[] columns = COLUMNS.get();
+        BVH objects = scene.getBVH();
+        CameraRays rays = cameraRays;
+        TemporalCache cache = frameCache;
+        GBuffer hits = frameGBuffer;
+        for (int y = y0; y < y1; y += blockSize) {
+            boolean skipRow = skipSize > 0 && y % skipSize == 0;
+            int x = x0;
+            while (x < x1) {
+                packet.reset(0, GlobalSettings.MAX_RENDER_DISTANCE);
+                int count = 0;
+                for (; x < x1 && count < columns.length; x += blockSize) {
+                    if (skipRow && x % skipSize == 0)
+                        continue;
+                    if (hits != null && hits.contains(x, y)) {
+                        RayHit hit = hits.getHit(x, y);
+                        shade(hit, radiance);
+                        if (cache != null)
+                            cache.store(x, y, hit, radiance);
+                        fillBlock(buffer, originY, x, y, Math.min(x + blockSize, x1), Math.min(y + blockSize, y1),
+                                radiance);
+                        continue;
+                    }
+                    if (cache != null && cache.reuse(x, y, objects, radiance)) {
+                        fillBlock(buffer, originY, x, y, Math.min(x + blockSize, x1), Math.min(y + blockSize, y1),
+                                radiance);
+                        continue;
+                    }
+                    columns[count++] = x;
+                }
+                rays.emit(packet, columns, count, y);
+                objects.cast(packet, packetKernel);
+
+                for (int i = 0; i < packet.size(); i++) {
+                    RayHit hit = packet.getHit(i);
+                    if (hits != null)
+                        hits.put(columns[i], y, hit);
+                    shade(hit, radiance);
+                    if (cache != null)
+                        cache.store(columns[i], y, hit, radiance);
+                    fillBlock(buffer, originY, columns[i], y, Math.min(columns[i] + blockSize, x1),
+                            Math.min(y + blockSize, y1), radiance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shades {@code RayHit} hit of a primary ray into {@code double[]} radiance,
+     * see {@link gameboy.utilities.Material#shade(RayHit, Scene, Lighting, double[])}
+     * 
+     * @param hit      {@code RayHit} to be shaded, {@code null} sees the sky
+     * @param radiance {@code double[]} to be overwritten with the result
+     */
+    private void shade(RayHit hit, double[] radiance) {
+        if (hit == null) {
+            radiance[0] = GlobalSettings.SKY_BOX_COLOR.getRed() / 255d;
+            radiance[1] = GlobalSettings.SKY_BOX_COLOR.getGreen() / 255d;
+            radiance[2] = GlobalSettings.SKY_BOX_COLOR.getBlue() / 255d;
+            return;
+        }
+        hit.getShape().getMaterial().shade(hit, scene, lighting, radiance);
+    }
+
+    private static void fillBlock(PixelBuffer buffer, int originY, int x0, int y0, int x1, int y1,
+            double[] radiance) {
+        buffer.fill(x0, y0 - originY, x1, y1 - originY, radiance[0], radiance[1], radiance[2]);
+    }
+
+    /**
+     * Renders at full resolution in strips of stripHeight rows from top to bottom,
+     * handing each strip to {@code StripWriter} writer while the next one is
+     * rendered. Each strip is shaded into a {@code PixelBuffer} and tonemapped.
+     * Only two strips are held in memory at any time
+     * 
+     * @param stripHeight {@code int} rows per strip
+     * @param writer      {@code StripWriter} receiving the strips
+     * @throws IOException if the writer fails
+     */
+    public void renderStrips(int stripHeight, StripWriter writer) throws IOException {
+        prepareShading();
+        cameraRays = new CameraRays(scene.getCurrentCamera(), projection, width, height);
+        int[] current = new int[width * stripHeight];
+        int[] next = new int[width * stripHeight];
+        PixelBuffer currentBuffer = new PixelBuffer(width, stripHeight);
+        PixelBuffer nextBuffer = new PixelBuffer(width, stripHeight);
+
+        ForkJoinTask<?> pending = pool.submit(stripTask(currentBuffer, current, 0, stripHeight));
+        for (int y = 0; y < height; y += stripHeight) {
+            pending.join();
+            int rows = Math.min(stripHeight, height - y);
+            if (y + stripHeight < height)
+                pending = pool.submit(stripTask(nextBuffer, next, y + stripHeight, stripHeight));
+            try {
+                writer.writeStrip(current, rows);
+            } catch (IOException e) {
+                pending.join();
+                throw e;
+            }
+
+            int[] swap = current;
+            current = next;
+            next = swap;
+            PixelBuffer swapBuffer = currentBuffer;
+            currentBuffer = nextBuffer;
+            nextBuffer = swapBuffer;
+        }
+    }
+
+    private ForkJoinTask<?> stripTask(PixelBuffer strip, int[] pixels, int y, int stripHeight) {
+        int y1 = Math.min(y + stripHeight, height);
+        return ForkJoinTask.adapt(() -> {
+            new TileTask(this, strip, y, 1, 0, 0, y, width, y1).invoke();
+            new TonemapTask(strip, pixels, width, 0, y1 - y).invoke();
+        });
+    }
+
+    /**
+     * Renders {@code Scene} scene at full resolution straight into a {@code .png}
+     * or {@code .ppm} {@code File} file, without keeping the whole image in
+     * memory, see {@link #renderStrips(int, StripWriter)}
+     * 
+     * @param scene  {@code Scene} to render
+     * @param width  {@code int} width in pixels
+     * @param height {@code int} height in pixels
+     * @param file   {@code File} to write
+     * @throws IOException if the file could not be written or its format is not
+     *                     supported
+     */
+    public void renderToFile(Scene scene, int width, int height, File file) throws IOException {
+        try (StripWriter writer = StripWriter.create(file, width, height)) {
+            Renderer renderer = new Renderer(scene, width, height, pool);
+            renderer.setProjection(projection);
+            renderer.renderStrips(GlobalSettings.STRIP_HEIGHT, writer);
+        }
     }
 
     public void renderToImage(Scene scene, int i, int j) throws IOException {
-        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
         System.out.println("Rendering to image...");
 
-        image = new Renderer(scene, i, j).render(1);
-
         File imgFile = new File("output.png");
-        ImageIO.write(image, "PNG", new FileOutputStream(imgFile));
+        renderToFile(scene, i, j, imgFile);
         System.out.println("Image saved.");
 
-        Desktop.getDesktop().open(imgFile);
+        if (Desktop.isDesktopSupported() && Desktop.getDesktop().isSupported(Desktop.Action.OPEN))
+            Desktop.getDesktop().open(imgFile);
+    }
+
+    /**
+     * Renders {@code Scene} scene at full resolution and writes it to
+     * {@code File} file, in the format given by its extension. Does not need a
+     * display
+     * 
+     * @param scene  {@code Scene} to render
+     * @param width  {@code int} width in pixels
+     * @param height {@code int} height in pixels
+     * @param file   {@code File} to write, e.g. {@code .png}, {@code .jpg} or
+     *               {@code .bmp}
+     * @return rendered {@code BufferedImage}
+     * @throws IOException if the file could not be written or its format is not
+     *                     supported
+     */
+    public BufferedImage renderToImage(Scene scene, int width, int height, File file) throws IOException {
+        Renderer renderer = new Renderer(scene, width, height, pool);
+        renderer.setProjection(projection);
+        BufferedImage image = renderer.render(1);
+
+        String name = file.getName();
+        String format = name.lastIndexOf('.') >= 0 ? name.substring(name.lastIndexOf('.') + 1) : "png";
+        if (!ImageIO.write(image, format, file))
+            throw new IOException("Unsupported image format: " + format);
+        return image;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
     }
 
     public double[] getNormalizedScreenCoordinates(int x, int y, double width, double height) {
@@ -79,18 +608,30 @@ public class Renderer {
         };
     }
 
-    public PixelData getPixelData(double u, double v) {
+    /**
+     * Gets the primary {@code Ray} through normalized screen coordinates u, v of
+     * the {@code ASPECT_FIT} projection, see
+     * {@link #getNormalizedScreenCoordinates(int, int, double, double)}. Frames
+     * generate their rays with {@code CameraRays} instead
+     * 
+     * @param u {@code double} horizontal screen coordinate
+     * @param v {@code double} vertical screen coordinate
+     * @return primary {@code Ray}
+     */
+    public Ray getPrimaryRay(double u, double v) {
         Camera cam = scene.getCurrentCamera();
         Vector3 eyePos = new Vector3(0, 0, (-1 / Math.tan(cam.getFOV() / 2)));
         Vector3 rayDir = new Vector3(u, v, 0).subtract(eyePos).rotate(cam.getPitch(), cam.getYaw()).normalize();
-        Ray ray = new Ray(eyePos.add(cam.getPosition()), rayDir);
+        return new Ray(eyePos.add(cam.getPosition()), rayDir);
+    }
 
-        RayHit hit = ray.cast(scene.getShapes());
+    public PixelData getPixelData(double u, double v) {
+        Ray ray = getPrimaryRay(u, v);
+
+        RayHit hit = ray.cast(scene.getBVH(), 0, GlobalSettings.MAX_RENDER_DISTANCE);
         if (hit == null)
             return null;
-        if (ray.getOrigin().distance(hit.getHitPoint()) > GlobalSettings.MAX_RENDER_DISTANCE)
-            return null;
 
-        return new PixelData(hit, scene.getLights(), scene.getShapes());
+        return new PixelData(hit, scene);
     }
 }
@@ -0,0 +1,86 @@
+package gameboy.core;
+
+/**
+ * Adjusts the render scale from measured frame times so that frames stay
+ * within a time budget. The scale only changes once the smoothed frame time
+ * leaves a band below the budget, and is held for a few frames afterwards, so
+ * it settles instead of oscillating between two values.
+ */
+public class ResolutionController {
+
+    private static final double SMOOTHING = 0.25;
+    private static final double LOWER_BOUND = 0.75;
+    private static final double AIM = 0.875;
+    private static final double STEP = 1.0 / 32;
+    private static final int SETTLE_FRAMES = 6;
+
+    private final double minScale;
+    private long targetFrameTime;
+    private double scale = 1;
+    private double averageFrameTime;
+    private int settle;
+
+    /**
+     * @param targetFrameTime {@code long} budget per frame in nanoseconds
+     * @param minScale        {@code double} smallest scale the controller may
+     *                        choose
+     */
+    public ResolutionController(long targetFrameTime, double minScale) {
+        this.targetFrameTime = targetFrameTime;
+        this.minScale = minScale;
+    }
+
+    /**
+     * Gets {@code double} factor the width and height of the frame should be
+     * rendered at, between the minimum scale and 1
+     *
+     * @return {@code double} render scale
+     */
+    public double getScale() {
+        return scale;
+    }
+
+    public void setTargetFrameTime(long targetFrameTime) {
+        this.targetFrameTime = targetFrameTime;
+    }
+
+    public long getTargetFrameTime() {
+        return targetFrameTime;
+    }
+
+    /**
+     * Records the render time of a frame rendered at {@link #getScale()} and
+     * adjusts the scale if the frame time is out of bounds. Render time is taken
+     * as proportional to the pixel count, so the scale changes with the square
+     * root of the time ratio
+     *
+     * @param frameTime {@code long} render time in nanoseconds
+     */
+    public void addFrameTime(long frameTime) {
+        if (settle > 0) {
+            settle--;
+            return;
+        }
+        averageFrameTime = averageFrameTime == 0 ? frameTime
+                : averageFrameTime + (frameTime - averageFrameTime) * SMOOTHING;
+
+        if (averageFrameTime > targetFrameTime || averageFrameTime < targetFrameTime * LOWER_BOUND) {
+            double wanted = scale * Math.sqrt(targetFrameTime * AIM / averageFrameTime);
+            wanted = Math.max(minScale, Math.min(1, Math.round(wanted / STEP) * STEP));
+            if (wanted != scale) {
+                scale = wanted;
+                averageFrameTime = 0;
+                settle = SETTLE_FRAMES;
+            }
+        }
+    }
+
+    /**
+     * Returns to full scale and forgets the measured frame times
+     */
+    public void reset() {
+        scale = 1;
+        averageFrameTime = 0;
+        settle = 0;
+    }
+}
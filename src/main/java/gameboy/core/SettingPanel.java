@@ -3,6 +3,7 @@ package gameboy.core;
 import java.awt.Button;
 import java.awt.Label;
 import java.awt.TextField;
+import java.awt.Toolkit;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseEvent;
@@ -73,6 +74,19 @@ public class SettingPanel extends JPanel {
 		public void modify(Object object);
 	}
 
+	/**
+	 * Reads the input of a setting on the event dispatch thread into the
+	 * {@code ObjectModification} that is applied to the scene later, so the
+	 * render loop never touches Swing components
+	 */
+	public interface ObjectEdit {
+		/**
+		 * @return {@code ObjectModification} with the values read from the input
+		 * @throws NumberFormatException if the input is not a number
+		 */
+		public ObjectModification capture();
+	}
+
 	public class VBox extends Box {
 		public VBox() {
 			super(BoxLayout.Y_AXIS);
@@ -133,7 +147,7 @@ public class SettingPanel extends JPanel {
 							}
 						});
 						shapes.add(menuItem);
-						scene.getShapes().add(shapeToAdd);
+						scene.submit(() -> scene.addShape(shapeToAdd));
 						dispose();
 					}
 				});
@@ -193,6 +207,30 @@ public class SettingPanel extends JPanel {
 			return currentItem;
 		}
 
+		/**
+		 * Reads the input of edit and queues its modification of the current item,
+		 * which the render loop applies between frames, see
+		 * {@link Scene#submit(Runnable)}. Input that is not a number is rejected
+		 * here and nothing is queued
+		 */
+		private void modify(ObjectEdit edit) {
+			ObjectModification modification;
+			try {
+				modification = edit.capture();
+			} catch (NumberFormatException e) {
+				Toolkit.getDefaultToolkit().beep();
+				return;
+			}
+			Object item = currentItem;
+			scene.submit(() -> {
+				try {
+					modification.modify(item);
+				} finally {
+					scene.markChanged(item);
+				}
+			});
+		}
+
 		public class Settings extends VBox {
 
 			protected Slider xSlider = new Slider("xAxis", -10, 10);
@@ -218,8 +256,10 @@ public class SettingPanel extends JPanel {
 			private Slider yawSlider = new Slider("Yaw", -10, 10);
 			private InputField fovField = new InputField("FOV", Math.toDegrees(cam.getFOV()), "°");
 
-			private ObjectModification setCameraPosition = (Object currentItem) -> ((Camera) currentItem)
-					.setPosition(new Vector3(xSlider.getValue(), ySlider.getValue(), zSlider.getValue()));
+			private ObjectEdit setCameraPosition = () -> {
+				Vector3 position = new Vector3(xSlider.getValue(), ySlider.getValue(), zSlider.getValue());
+				return (Object object) -> ((Camera) object).setPosition(position);
+			};
 
 			public CameraSettings() {
 				super();
@@ -230,15 +270,22 @@ public class SettingPanel extends JPanel {
 				ySlider.setAction(setCameraPosition);
 				zSlider.setAction(setCameraPosition);
 
-				pitchSlider.setAction(
-						(Object object) -> ((Camera) object).setPitch(Math.toRadians(-pitchSlider.getValue())));
+				pitchSlider.setAction(() -> {
+					double pitch = Math.toRadians(-pitchSlider.getValue());
+					return (Object object) -> ((Camera) object).setPitch(pitch);
+				});
 				add(pitchSlider);
 
-				yawSlider.setAction((Object object) -> ((Camera) object).setYaw(Math.toRadians(yawSlider.getValue())));
+				yawSlider.setAction(() -> {
+					double yaw = Math.toRadians(yawSlider.getValue());
+					return (Object object) -> ((Camera) object).setYaw(yaw);
+				});
 				add(yawSlider);
 
-				fovField.setAction((Object object) -> ((Camera) object)
-						.setFOV(Math.toRadians(Double.parseDouble(fovField.getValue()))));
+				fovField.setAction(() -> {
+					double fov = Math.toRadians(Double.parseDouble(fovField.getValue()));
+					return (Object object) -> ((Camera) object).setFOV(fov);
+				});
 				add(fovField);
 			}
 		}
@@ -248,8 +295,10 @@ public class SettingPanel extends JPanel {
 			private Light light = (Light) currentItem;
 			private ColorInput colorInput = new ColorInput(light.getColor());
 
-			private ObjectModification setLightPosition = (Object currentItem) -> ((Light) currentItem)
-					.setAnchor(new Vector3(xSlider.getValue(), ySlider.getValue(), zSlider.getValue()));;
+			private ObjectEdit setLightPosition = () -> {
+				Vector3 anchor = new Vector3(xSlider.getValue(), ySlider.getValue(), zSlider.getValue());
+				return (Object object) -> ((Light) object).setAnchor(anchor);
+			};
 
 			public LightSettings() {
 				super();
@@ -260,15 +309,20 @@ public class SettingPanel extends JPanel {
 				ySlider.setAction(setLightPosition);
 				zSlider.setAction(setLightPosition);
 
-				colorInput.setAction((Object object) -> ((Light) currentItem).setColor(colorInput.getColor()));
+				colorInput.setAction(() -> {
+					Color color = colorInput.getColor();
+					return (Object object) -> ((Light) object).setColor(color);
+				});
 				add(colorInput);
 			}
 		}
 
 		public class ShapeSettings extends Settings {
 
-			private ObjectModification setCameraPosition = (Object currentItem) -> ((Shape) currentItem)
-					.setAnchor(new Vector3(xSlider.getValue(), ySlider.getValue(), zSlider.getValue()));
+			private ObjectEdit setCameraPosition = () -> {
+				Vector3 anchor = new Vector3(xSlider.getValue(), ySlider.getValue(), zSlider.getValue());
+				return (Object object) -> ((Shape) object).setAnchor(anchor);
+			};
 
 			private Shape shape = (Shape) currentItem;
 
@@ -284,15 +338,19 @@ public class SettingPanel extends JPanel {
 				if (shape instanceof Cube) {
 					Cube cube = ((Cube) shape);
 					InputField sideLengthInputField = new InputField("Sidelength", cube.getSideLength());
-					sideLengthInputField.setAction((Object object) -> ((Cube) object)
-							.setSideLength(Double.parseDouble(sideLengthInputField.getValue())));
+					sideLengthInputField.setAction(() -> {
+						double sideLength = Double.parseDouble(sideLengthInputField.getValue());
+						return (Object object) -> ((Cube) object).setSideLength(sideLength);
+					});
 					add(sideLengthInputField);
 				}
 				else if (shape instanceof Sphere) {
 					Sphere sphere = ((Sphere) shape);
 					InputField radiusInputField = new InputField("Radius", sphere.getRadius());
-					radiusInputField.setAction((Object object) -> ((Sphere) object)
-							.setRadius(Double.parseDouble(radiusInputField.getValue())));
+					radiusInputField.setAction(() -> {
+						double radius = Double.parseDouble(radiusInputField.getValue());
+						return (Object object) -> ((Sphere) object).setRadius(radius);
+					});
 					add(radiusInputField);
 				}
 				else if (shape instanceof Plane) {
@@ -305,9 +363,11 @@ public class SettingPanel extends JPanel {
 					Slider zDirectionSlider = new Slider("zDir", -10, 10);
 					zDirectionSlider.setValue(plane.getAxis().z);
 
-					ObjectModification setPlaneAxis = (Object object) -> ((Plane) object)
-							.setAxis(new Vector3(xDirectionSlider.getValue(), yDirectionSlider.getValue(),
-									zDirectionSlider.getValue()).normalize());
+					ObjectEdit setPlaneAxis = () -> {
+						Vector3 axis = new Vector3(xDirectionSlider.getValue(), yDirectionSlider.getValue(),
+								zDirectionSlider.getValue()).normalize();
+						return (Object object) -> ((Plane) object).setAxis(axis);
+					};
 
 					xDirectionSlider.setAction(setPlaneAxis);
 					yDirectionSlider.setAction(setPlaneAxis);
@@ -341,42 +401,52 @@ public class SettingPanel extends JPanel {
 					materialSelector.addActionListener(new ActionListener() {
 						@Override
 						public void actionPerformed(ActionEvent e) {
-							new ObjectModification() {
-								@Override
-								public void modify(Object object) {
-									Material material = ((Material) materialSelector.getSelectedItem());
-									material.setShape((Shape) object);
-									((Shape) object).setMaterial(material);
-
-								}
-							}.modify(currentItem);
+							Material material = ((Material) materialSelector.getSelectedItem());
+							modify(() -> (Object object) -> {
+								material.setShape((Shape) object);
+								((Shape) object).setMaterial(material);
+							});
 						}
 					});
 					add(materialSelector);
-					mainColorInput.setAction(
-							(Object object) -> ((Shape) object).getMaterial().setColor(mainColorInput.getColor()));
+					mainColorInput.setAction(() -> {
+						Color color = mainColorInput.getColor();
+						return (Object object) -> ((Shape) object).getMaterial().setColor(color);
+					});
 					add(mainColorInput);
 					if (material instanceof CheckerMaterial) {
 						ColorInput secColorInput = new ColorInput(((CheckerMaterial) material).getSecColor());
-						secColorInput.setAction((Object object) -> ((CheckerMaterial) ((Shape) object).getMaterial())
-								.setSecColor(secColorInput.getColor()));
+						secColorInput.setAction(() -> {
+							Color color = secColorInput.getColor();
+							return (Object object) -> ((CheckerMaterial) ((Shape) object).getMaterial())
+									.setSecColor(color);
+						});
 						add(secColorInput);
 						InputField gridSizeField = new InputField("Gridsize",
 								((CheckerMaterial) material).getGridsize());
-						gridSizeField.setAction((Object object) -> ((CheckerMaterial) ((Shape) object).getMaterial())
-								.setGridsize(Double.parseDouble(gridSizeField.getValue())));
+						gridSizeField.setAction(() -> {
+							double gridSize = Double.parseDouble(gridSizeField.getValue());
+							return (Object object) -> ((CheckerMaterial) ((Shape) object).getMaterial())
+									.setGridsize(gridSize);
+						});
 						add(gridSizeField);
 					}
 					if (!(material instanceof MirrorMaterial)) {
-						reflectivity.setAction((Object object) -> ((Shape) object).getMaterial()
-								.setReflectivity(Double.parseDouble(reflectivity.getValue())));
+						reflectivity.setAction(() -> {
+							double value = Double.parseDouble(reflectivity.getValue());
+							return (Object object) -> ((Shape) object).getMaterial().setReflectivity(value);
+						});
 						add(reflectivity);
 					}
-					shininess.setAction((Object object) -> ((Shape) object).getMaterial()
-							.setShininess(Double.parseDouble(shininess.getValue())));
+					shininess.setAction(() -> {
+						double value = Double.parseDouble(shininess.getValue());
+						return (Object object) -> ((Shape) object).getMaterial().setShininess(value);
+					});
 					add(shininess);
-					emission.setAction((Object object) -> ((Shape) object).getMaterial()
-							.setEmission(Double.parseDouble(emission.getValue())));
+					emission.setAction(() -> {
+						double value = Double.parseDouble(emission.getValue());
+						return (Object object) -> ((Shape) object).getMaterial().setEmission(value);
+					});
 					add(emission);
 				}
 			}
@@ -430,18 +500,18 @@ public class SettingPanel extends JPanel {
 				return Double.parseDouble(value.getText());
 			}
 
-			public void setAction(ObjectModification modification) {
+			public void setAction(ObjectEdit edit) {
 				slider.addChangeListener(new ChangeListener() {
 					@Override
 					public void stateChanged(ChangeEvent e) {
-						modification.modify(currentItem);
+						modify(edit);
 					}
 				});
 
 				value.addActionListener(new ActionListener() {
 					@Override
 					public void actionPerformed(ActionEvent e) {
-						modification.modify(currentItem);
+						modify(edit);
 					}
 				});
 			}
@@ -466,10 +536,10 @@ public class SettingPanel extends JPanel {
 				add(blueField);
 			}
 
-			public void setAction(ObjectModification objectModification) {
-				redField.setAction(objectModification);
-				greenField.setAction(objectModification);
-				blueField.setAction(objectModification);
+			public void setAction(ObjectEdit edit) {
+				redField.setAction(edit);
+				greenField.setAction(edit);
+				blueField.setAction(edit);
 			}
 
 			public Color getColor() {
@@ -505,11 +575,11 @@ public class SettingPanel extends JPanel {
 				return field.getText();
 			}
 
-			public void setAction(ObjectModification modification) {
+			public void setAction(ObjectEdit edit) {
 				field.addActionListener(new ActionListener() {
 					@Override
 					public void actionPerformed(ActionEvent e) {
-						modification.modify(currentItem);
+						modify(edit);
 					}
 				});
 			}
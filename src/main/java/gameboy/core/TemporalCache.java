@@ -0,0 +1,237 @@
+package gameboy.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+import gameboy.utilities.Scene;
+import gameboy.utilities.Shape;
+import gameboy.utilities.data.BVH;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Keeps the hit point, {@code Shape} and shaded radiance of every sample of the
+ * last interactive frame, so that the next frame can reuse them. At the start
+ * of a frame the cached hit points are projected into the new camera and kept
+ * where they are the closest point landing on a sample. A reused sample is
+ * checked with one any-hit ray from the eye to its hit point, samples that are
+ * newly visible or fail the check are traced and shaded as usual.
+ * <p>
+ * Shading depends on the view direction, so samples are retraced after a few
+ * frames even if they stay valid, spread over the frames so that the cost is
+ * even. Reflective surfaces are never reused, and everything is dropped once
+ * the {@code Scene} changes.
+ */
+public class TemporalCache {
+
+    private static final double VALIDATION_EPSILON = 1e-3;
+    /** Pixels a reprojected hit point may land away from the sample it is kept for */
+    private static final double MAX_OFFSET = 0.5;
+
+    private final int maxAge;
+
+    private double[] points = new double[0];
+    private double[] normals = new double[0];
+    private float[] colors = new float[0];
+    private Shape[] shapes = new Shape[0];
+    private int[] ages = new int[0];
+    private double[] lastPoints = points;
+    private double[] lastNormals = normals;
+    private float[] lastColors = colors;
+    private Shape[] lastShapes = shapes;
+    private int[] lastAges = ages;
+    private double[] depths = new double[0];
+    private final double[] projected = new double[6];
+
+    private int columns, rows, blockSize;
+    private int sceneVersion = -1;
+    private boolean warm;
+    private CameraRays rays;
+
+    private final LongAdder reused = new LongAdder();
+    private final LongAdder traced = new LongAdder();
+
+    /**
+     * @param maxAge {@code int} number of frames a sample may be reused before it
+     *               is traced again
+     */
+    public TemporalCache(int maxAge) {
+        this.maxAge = Math.max(1, maxAge);
+    }
+
+    /**
+     * Prepares a frame traced every blockSize pixels, projecting the samples of
+     * the previous frame into the current camera of {@code Scene} scene
+     *
+     * @param rays {@code CameraRays} of the frame
+     */
+    void beginFrame(Scene scene, CameraRays rays, int blockSize) {
+        int columns = (rays.getWidth() + blockSize - 1) / blockSize;
+        int rows = (rays.getHeight() + blockSize - 1) / blockSize;
+        swap(columns * rows);
+        this.columns = columns;
+        this.rows = rows;
+        this.blockSize = blockSize;
+        this.rays = rays;
+        reused.reset();
+        traced.reset();
+
+        warm = scene.getVersion() == sceneVersion;
+        sceneVersion = scene.getVersion();
+        if (!warm)
+            return;
+        for (int i = 0; i < lastShapes.length; i++) {
+            if (lastShapes[i] != null && lastAges[i] + 1 < maxAge)
+                reproject(i);
+        }
+    }
+
+    private void swap(int samples) {
+        double[] p = lastPoints;
+        double[] n = lastNormals;
+        float[] c = lastColors;
+        Shape[] s = lastShapes;
+        int[] a = lastAges;
+        lastPoints = points;
+        lastNormals = normals;
+        lastColors = colors;
+        lastShapes = shapes;
+        lastAges = ages;
+
+        if (s.length != samples) {
+            p = new double[samples * 3];
+            n = new double[samples * 3];
+            c = new float[samples * 3];
+            s = new Shape[samples];
+            a = new int[samples];
+        }
+        // The recycled set may have the size of an earlier frame than depths
+        if (depths.length != samples)
+            depths = new double[samples];
+        Arrays.fill(s, null);
+        Arrays.fill(depths, Double.POSITIVE_INFINITY);
+        points = p;
+        normals = n;
+        colors = c;
+        shapes = s;
+        ages = a;
+    }
+
+    private void reproject(int last) {
+        double[] view = projected;
+        if (!rays.project(lastPoints[last * 3], lastPoints[last * 3 + 1], lastPoints[last * 3 + 2], view))
+            return;
+        // Back faces have turned away from the camera
+        if (view[3] * lastNormals[last * 3] + view[4] * lastNormals[last * 3 + 1]
+                + view[5] * lastNormals[last * 3 + 2] >= 0)
+            return;
+
+        int column = (int) Math.round(view[0] / blockSize);
+        int row = (int) Math.round(view[1] / blockSize);
+        if (column < 0 || row < 0 || column >= columns || row >= rows)
+            return;
+        // A block is traced at its top left pixel, a point landing further away
+        // was seen through another pixel, e.g. of a finer frame
+        if (Math.abs(view[0] - column * blockSize) > MAX_OFFSET || Math.abs(view[1] - row * blockSize) > MAX_OFFSET)
+            return;
+
+        int sample = row * columns + column;
+        double depth = view[2];
+        if (depth >= depths[sample])
+            return;
+        depths[sample] = depth;
+        shapes[sample] = lastShapes[last];
+        ages[sample] = lastAges[last] + 1;
+        System.arraycopy(lastPoints, last * 3, points, sample * 3, 3);
+        System.arraycopy(lastNormals, last * 3, normals, sample * 3, 3);
+        System.arraycopy(lastColors, last * 3, colors, sample * 3, 3);
+    }
+
+    /**
+     * Tries to reuse the sample at pixel x, y, which has to lie on the block grid
+     * of the frame, writing its radiance to {@code double[]} radiance
+     *
+     * @return {@code true} if the sample was reused, otherwise it has to be
+     *         traced and passed to {@link #store(int, int, RayHit, double[])}
+     */
+    boolean reuse(int x, int y, BVH objects, double[] radiance) {
+        int sample = (y / blockSize) * columns + x / blockSize;
+        Shape shape = shapes[sample];
+        if (shape == null)
+            return false;
+
+        double px = points[sample * 3], py = points[sample * 3 + 1], pz = points[sample * 3 + 2];
+        Vector3 origin = rays.getOrigin(px, py, pz);
+        double dx = px - origin.x, dy = py - origin.y, dz = pz - origin.z;
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        Ray ray = new Ray(origin, new Vector3(dx, dy, dz), shape);
+        if (objects.findOccluder(ray, 0, distance - VALIDATION_EPSILON, null) != null) {
+            shapes[sample] = null;
+            return false;
+        }
+
+        radiance[0] = colors[sample * 3];
+        radiance[1] = colors[sample * 3 + 1];
+        radiance[2] = colors[sample * 3 + 2];
+        reused.increment();
+        return true;
+    }
+
+    /**
+     * Records the traced sample at pixel x, y
+     *
+     * @param hit      {@code RayHit} of the primary ray, {@code null} if it hit
+     *                 nothing
+     * @param radiance {@code double[]} shaded radiance
+     */
+    void store(int x, int y, RayHit hit, double[] radiance) {
+        int sample = (y / blockSize) * columns + x / blockSize;
+        traced.increment();
+        if (hit == null || hit.getShape().getMaterial().getReflectivity() > 0) {
+            shapes[sample] = null;
+            return;
+        }
+
+        Vector3 point = hit.getHitPoint();
+        Vector3 normal = hit.getNormal();
+        shapes[sample] = hit.getShape();
+        // Samples of a frame without history start at different ages, so that
+        // they do not all expire in the same later frame
+        ages[sample] = warm ? 0 : ((sample * 0x9E3779B1) >>> 16) % maxAge;
+        points[sample * 3] = point.x;
+        points[sample * 3 + 1] = point.y;
+        points[sample * 3 + 2] = point.z;
+        normals[sample * 3] = normal.x;
+        normals[sample * 3 + 1] = normal.y;
+        normals[sample * 3 + 2] = normal.z;
+        colors[sample * 3] = (float) radiance[0];
+        colors[sample * 3 + 1] = (float) radiance[1];
+        colors[sample * 3 + 2] = (float) radiance[2];
+    }
+
+    /**
+     * Drops all cached samples
+     */
+    public void clear() {
+        sceneVersion = -1;
+    }
+
+    /**
+     * Gets {@code long} number of samples reused in the last frame
+     *
+     * @return {@code long} reused samples
+     */
+    public long getReusedCount() {
+        return reused.sum();
+    }
+
+    /**
+     * Gets {@code long} number of samples traced in the last frame
+     *
+     * @return {@code long} traced samples
+     */
+    public long getTracedCount() {
+        return traced.sum();
+    }
+}
@@ -0,0 +1,83 @@
+package gameboy.core;
+
+import java.util.concurrent.RecursiveAction;
+
+import gameboy.utilities.GlobalSettings;
+import gameboy.utilities.data.PixelBuffer;
+
+/**
+ * Recursively splits a rectangular region of a frame until it is no larger
+ * than one tile, then traces that tile into a {@code PixelBuffer}. Splits stay
+ * aligned to the block size so every tile covers whole blocks and the result
+ * matches a serial render.
+ */
+public class TileTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Renderer renderer;
+    private final PixelBuffer buffer;
+    private final int originY;
+    private final int blockSize;
+    private final int skipSize;
+    private final int tileSize;
+    private final int x0, y0, x1, y1;
+
+    public TileTask(Renderer renderer, PixelBuffer buffer, int blockSize) {
+        this(renderer, buffer, blockSize, 0);
+    }
+
+    /**
+     * Creates a {@code TileTask} which leaves blocks starting on a multiple of
+     * skipSize in both axes untouched, as they were already traced at that block
+     * size
+     * 
+     * @param buffer   {@code PixelBuffer} at least the size of the renderer
+     * @param skipSize {@code int} block size of the samples to keep, 0 traces all
+     */
+    public TileTask(Renderer renderer, PixelBuffer buffer, int blockSize, int skipSize) {
+        this(renderer, buffer, 0, blockSize, skipSize, 0, 0, renderer.getWidth(), renderer.getHeight());
+    }
+
+    /**
+     * Creates a {@code TileTask} for the region x0, y0 to x1, y1 of the frame,
+     * where buffer holds the rows from originY on
+     */
+    TileTask(Renderer renderer, PixelBuffer buffer, int originY, int blockSize, int skipSize, int x0, int y0, int x1,
+            int y1) {
+        this.renderer = renderer;
+        this.buffer = buffer;
+        this.originY = originY;
+        this.blockSize = blockSize;
+        this.skipSize = skipSize;
+        this.tileSize = Math.max(blockSize, GlobalSettings.TILE_SIZE / blockSize * blockSize);
+        this.x0 = x0;
+        this.y0 = y0;
+        this.x1 = x1;
+        this.y1 = y1;
+    }
+
+    @Override
+    protected void compute() {
+        int w = x1 - x0;
+        int h = y1 - y0;
+
+        if (w <= tileSize && h <= tileSize) {
+            renderer.renderTile(buffer, originY, x0, y0, x1, y1, blockSize, skipSize);
+        }
+        else if (w >= h) {
+            int mid = x0 + align(w / 2);
+            invokeAll(new TileTask(renderer, buffer, originY, blockSize, skipSize, x0, y0, mid, y1),
+                    new TileTask(renderer, buffer, originY, blockSize, skipSize, mid, y0, x1, y1));
+        }
+        else {
+            int mid = y0 + align(h / 2);
+            invokeAll(new TileTask(renderer, buffer, originY, blockSize, skipSize, x0, y0, x1, mid),
+                    new TileTask(renderer, buffer, originY, blockSize, skipSize, x0, mid, x1, y1));
+        }
+    }
+
+    private int align(int length) {
+        return Math.max(blockSize, length / blockSize * blockSize);
+    }
+}
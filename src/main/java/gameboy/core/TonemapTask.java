@@ -0,0 +1,45 @@
+package gameboy.core;
+
+import java.util.concurrent.RecursiveAction;
+
+import gameboy.utilities.GlobalSettings;
+import gameboy.utilities.data.PixelBuffer;
+
+/**
+ * Recursively splits the rows of a {@code PixelBuffer} until at most one tile
+ * high, then tonemaps them into packed pixels, see
+ * {@link PixelBuffer#tonemap(int[], int, int, int, gameboy.utilities.data.Tonemap, double)}
+ */
+public class TonemapTask extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final PixelBuffer buffer;
+    private final int[] pixels;
+    private final int stride;
+    private final int y0, y1;
+
+    public TonemapTask(PixelBuffer buffer, int[] pixels, int stride) {
+        this(buffer, pixels, stride, 0, buffer.getHeight());
+    }
+
+    TonemapTask(PixelBuffer buffer, int[] pixels, int stride, int y0, int y1) {
+        this.buffer = buffer;
+        this.pixels = pixels;
+        this.stride = stride;
+        this.y0 = y0;
+        this.y1 = y1;
+    }
+
+    @Override
+    protected void compute() {
+        if (y1 - y0 <= GlobalSettings.TILE_SIZE) {
+            buffer.tonemap(pixels, stride, y0, y1, GlobalSettings.TONEMAP, GlobalSettings.EXPOSURE);
+        }
+        else {
+            int mid = y0 + (y1 - y0) / 2;
+            invokeAll(new TonemapTask(buffer, pixels, stride, y0, mid),
+                    new TonemapTask(buffer, pixels, stride, mid, y1));
+        }
+    }
+}
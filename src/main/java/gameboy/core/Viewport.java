@@ -4,24 +4,46 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
 
 import javax.swing.*;
 
+import gameboy.lights.ShadowMaps;
 import gameboy.utilities.Camera;
+import gameboy.utilities.GlobalSettings;
+import gameboy.utilities.Projection;
 import gameboy.utilities.Scene;
 import gameboy.utilities.math.Vector3;
 
 public class Viewport extends JPanel {
 
-	protected Renderer renderer;
-	protected BufferedImage frame;
-	protected Vector3 deltaCamera = new Vector3(0, 0, 0);
-	protected double resolution = 0.5F;
-	protected boolean captureCursor = true;
-	protected double cameraYaw;
-	protected double cameraPitch;
+	protected volatile Renderer renderer;
+	protected volatile FrameRing frames;
+	protected volatile int targetFrameRate = GlobalSettings.TARGET_FRAME_RATE;
+	protected volatile double resolution = 0.5F;
+	protected volatile boolean progressive = true;
+	protected volatile boolean dynamicResolution = GlobalSettings.DYNAMIC_RESOLUTION;
+	protected volatile ShadowMaps shadowMaps = GlobalSettings.SHADOW_MAPS
+			? new ShadowMaps(GlobalSettings.SHADOW_MAP_SIZE)
+			: null;
+	protected volatile TemporalCache temporalCache = GlobalSettings.TEMPORAL_REPROJECTION
+			? new TemporalCache(GlobalSettings.TEMPORAL_MAX_AGE)
+			: null;
+	protected volatile Projection projection = GlobalSettings.PROJECTION;
+	protected ResolutionController resolutionController = new ResolutionController(
+			getFrameTime(GlobalSettings.TARGET_FRAME_RATE), GlobalSettings.MIN_RENDER_SCALE);
+	/** Set to {@code null} on the event dispatch thread to force a new image */
+	private volatile Camera lastCamera;
+	private Vector3 lastPosition = new Vector3(0, 0, 0);
+	private double lastYaw, lastPitch, lastFOV, lastResolution;
+	private int lastSceneVersion;
+	protected volatile boolean captureCursor = true;
+	/** Replaced on the event dispatch thread, read by the render loop once per frame */
+	protected volatile CameraInput cameraInput = new CameraInput(0, 0, 0, 0, 0);
 	protected Robot robot;
 	protected Scene scene;
+	/** Snapshot of scene rendered last, shared with the event dispatch thread */
+	protected volatile Scene snapshot;
 	protected BufferedImage cursorImg = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
 	protected Cursor blankCursor = Toolkit.getDefaultToolkit().createCustomCursor(cursorImg, new Point(0, 0),
 			"blank cursor");
@@ -38,22 +60,22 @@ public class Viewport extends JPanel {
 			@Override
 			public void keyPressed(KeyEvent e) {
 				if (e.getKeyCode() == KeyEvent.VK_D) {
-					deltaCamera.setX(0.2F);
+					cameraInput = cameraInput.moveX(0.2F);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_A) {
-					deltaCamera.setX(-0.2F);
+					cameraInput = cameraInput.moveX(-0.2F);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_W) {
-					deltaCamera.setZ(0.2F);
+					cameraInput = cameraInput.moveZ(0.2F);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_S) {
-					deltaCamera.setZ(-0.2F);
+					cameraInput = cameraInput.moveZ(-0.2F);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-					deltaCamera.setY(0.2F);
+					cameraInput = cameraInput.moveY(0.2F);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_SHIFT) {
-					deltaCamera.setY(-0.2F);
+					cameraInput = cameraInput.moveY(-0.2F);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_1) {
 					resolution = 1;
@@ -67,10 +89,28 @@ public class Viewport extends JPanel {
 				else if (e.getKeyCode() == KeyEvent.VK_4) {
 					resolution = 0.125F;
 				}
+				else if (e.getKeyCode() == KeyEvent.VK_P) {
+					setProgressive(!progressive);
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_R) {
+					setDynamicResolution(!dynamicResolution);
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_M) {
+					setShadowMapping(shadowMaps == null);
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_T) {
+					setTemporalReprojection(temporalCache == null);
+				}
+				else if (e.getKeyCode() == KeyEvent.VK_O) {
+					Projection[] projections = Projection.values();
+					setProjection(projections[(projection.ordinal() + 1) % projections.length]);
+				}
 				else if (e.getKeyCode() == KeyEvent.VK_F12 || e.getKeyCode() == KeyEvent.VK_PRINTSCREEN
 						|| e.getKeyCode() == KeyEvent.VK_F2) {
+					Scene current = snapshot;
 					try {
-						renderer.renderToImage(scene, 3840, 2160);
+						if (current != null)
+							renderer.renderToImage(current, 3840, 2160);
 					} catch (IOException ex) {
 						ex.printStackTrace();
 					}
@@ -80,22 +120,22 @@ public class Viewport extends JPanel {
 			@Override
 			public void keyReleased(KeyEvent e) {
 				if (e.getKeyCode() == KeyEvent.VK_D) {
-					deltaCamera.setX(0);
+					cameraInput = cameraInput.moveX(0);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_A) {
-					deltaCamera.setX(0);
+					cameraInput = cameraInput.moveX(0);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_W) {
-					deltaCamera.setZ(0);
+					cameraInput = cameraInput.moveZ(0);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_S) {
-					deltaCamera.setZ(0);
+					cameraInput = cameraInput.moveZ(0);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_SPACE) {
-					deltaCamera.setY(0);
+					cameraInput = cameraInput.moveY(0);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_SHIFT) {
-					deltaCamera.setY(0);
+					cameraInput = cameraInput.moveY(0);
 				}
 				else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
 					if (captureCursor) {
@@ -118,8 +158,9 @@ public class Viewport extends JPanel {
 
 					int mouseXOffset = e.getXOnScreen() - centerX;
 					int mouseYOffset = e.getYOnScreen() - centerY;
-					cameraYaw = (cameraYaw + mouseXOffset * 0.001);
-					cameraPitch = (Math.min(90, Math.max(-90, cameraPitch + mouseYOffset * 0.001)));
+					CameraInput input = cameraInput;
+					cameraInput = input.look(input.yaw + mouseXOffset * 0.001,
+							Math.min(90, Math.max(-90, input.pitch + mouseYOffset * 0.001)));
 					robot.mouseMove(centerX, centerY);
 				}
 			}
@@ -140,8 +181,7 @@ public class Viewport extends JPanel {
 		}
 
 		Camera cam = scene.getCurrentCamera();
-		this.cameraYaw = cam.getYaw();
-		this.cameraPitch = cam.getPitch();
+		cameraInput = cameraInput.look(cam.getYaw(), cam.getPitch());
 		setCaptureCursor(true);
 	}
 
@@ -159,22 +199,245 @@ public class Viewport extends JPanel {
 		}
 	}
 
+	/**
+	 * Sets the frame rate the render loop is paced to, 0 renders as fast as
+	 * possible
+	 * 
+	 * @param targetFrameRate {@code int} frames per second
+	 */
+	public void setTargetFrameRate(int targetFrameRate) {
+		this.targetFrameRate = targetFrameRate;
+		resolutionController.setTargetFrameTime(getFrameTime(targetFrameRate));
+	}
+
+	/**
+	 * Gets {@code long} frame time budget in nanoseconds for a frame rate, 16 ms
+	 * if the frame rate is not limited
+	 * 
+	 * @param frameRate {@code int} frames per second
+	 * @return {@code long} nanoseconds per frame
+	 */
+	private static long getFrameTime(int frameRate) {
+		return frameRate > 0 ? 1_000_000_000L / frameRate : 16_000_000L;
+	}
+
+	public int getTargetFrameRate() {
+		return targetFrameRate;
+	}
+
+	/**
+	 * Sets whether a still view is refined to full resolution over the following
+	 * frames, in which case the resolution keys set the block size of the first,
+	 * coarse pass
+	 * 
+	 * @param progressive {@code boolean} progressive rendering
+	 */
+	public void setProgressive(boolean progressive) {
+		this.progressive = progressive;
+		lastCamera = null;
+	}
+
+	public boolean isProgressive() {
+		return progressive;
+	}
+
+	/**
+	 * Sets whether the render scale follows the frame time, rendering a smaller
+	 * image that is stretched to the panel when frames take longer than the
+	 * target frame rate allows
+	 * 
+	 * @param dynamicResolution {@code boolean} dynamic resolution
+	 */
+	public void setDynamicResolution(boolean dynamicResolution) {
+		this.dynamicResolution = dynamicResolution;
+	}
+
+	public boolean isDynamicResolution() {
+		return dynamicResolution;
+	}
+
+	/**
+	 * Sets whether shadows are looked up in cube shadow maps, which are only
+	 * rebuilt when lights or shapes change, instead of being traced per pixel.
+	 * Images saved with F12 always trace their shadows
+	 * 
+	 * @param shadowMapping {@code boolean} shadow mapping
+	 */
+	public void setShadowMapping(boolean shadowMapping) {
+		shadowMaps = shadowMapping ? new ShadowMaps(GlobalSettings.SHADOW_MAP_SIZE) : null;
+		lastCamera = null;
+	}
+
+	public boolean isShadowMapping() {
+		return shadowMaps != null;
+	}
+
+	/**
+	 * Sets whether the first pass of each frame reuses the samples of the last
+	 * frame that are still visible, only tracing the rest, see
+	 * {@link TemporalCache}. Images saved with F12 always trace every pixel
+	 * 
+	 * @param temporalReprojection {@code boolean} temporal reprojection
+	 */
+	public void setTemporalReprojection(boolean temporalReprojection) {
+		temporalCache = temporalReprojection ? new TemporalCache(GlobalSettings.TEMPORAL_MAX_AGE) : null;
+		lastCamera = null;
+	}
+
+	public boolean isTemporalReprojection() {
+		return temporalCache != null;
+	}
+
+	/**
+	 * Sets the {@code Projection} of the camera, also used for images saved with
+	 * F12
+	 * 
+	 * @param projection {@code Projection} of the camera
+	 */
+	public void setProjection(Projection projection) {
+		this.projection = projection;
+		lastCamera = null;
+	}
+
+	public Projection getProjection() {
+		return projection;
+	}
+
+	/**
+	 * Checks whether anything that affects the image changed since the last call
+	 * 
+	 * @param frameScene snapshot of the {@code Scene} to be rendered
+	 * @return {@code true} if the last image is outdated
+	 */
+	private boolean viewChanged(Scene frameScene) {
+		Camera cam = frameScene.getCurrentCamera();
+		Vector3 position = cam.getPosition();
+		boolean changed = cam != lastCamera || position.distanceSquared(lastPosition) != 0 || cam.getYaw() != lastYaw
+				|| cam.getPitch() != lastPitch || cam.getFOV() != lastFOV || resolution != lastResolution
+				|| frameScene.getVersion() != lastSceneVersion;
+		lastCamera = cam;
+		lastPosition.set(position);
+		lastYaw = cam.getYaw();
+		lastPitch = cam.getPitch();
+		lastFOV = cam.getFOV();
+		lastResolution = resolution;
+		lastSceneVersion = frameScene.getVersion();
+		return changed;
+	}
+
 	public void run() {
+		long nextFrame = System.nanoTime();
 		while (true) {
-			renderer = new Renderer(scene, getWidth(), getHeight());
+			if (frames == null || frames.getWidth() != getWidth() || frames.getHeight() != getHeight()) {
+				renderer = new Renderer(scene, getWidth(), getHeight());
+				renderer.setDeferredShading(GlobalSettings.DEFERRED_SHADING);
+				frames = new FrameRing(renderer, GlobalSettings.FRAME_BUFFERS);
+			}
+			renderer.setShadowMaps(shadowMaps);
+			renderer.setTemporalCache(temporalCache);
+			renderer.setProjection(projection);
+			// The scene is only edited on this thread, between frames, the render
+			// threads read an immutable snapshot of it
+			scene.applyEdits();
 			Camera cam = scene.getCurrentCamera();
 			if (captureCursor) {
-				cam.setYaw(cameraYaw);
-				cam.setPitch(cameraPitch);
-				cam.translate(deltaCamera.rotate(cam.getPitch(), cam.getYaw()));
+				CameraInput input = cameraInput;
+				cam.setYaw(input.yaw);
+				cam.setPitch(input.pitch);
+				cam.translate(new Vector3(input.moveX, input.moveY, input.moveZ).rotate(cam.getPitch(), cam.getYaw()));
+			}
+			Scene frameScene = scene.snapshot();
+			snapshot = frameScene;
+			renderer.setScene(frameScene);
+			boolean changed = viewChanged(frameScene);
+			// Edits of lights and materials are shaded from the G-buffer, which only
+			// exists at the current size
+			boolean scaled = dynamicResolution && (!progressive || changed && !renderer.canReshade());
+			if (!dynamicResolution)
+				resolutionController.reset();
+			double scale = scaled ? resolutionController.getScale() : 1;
+			renderer.setSize(Math.max(1, (int) Math.round(getWidth() * scale)),
+					Math.max(1, (int) Math.round(getHeight() * scale)));
+
+			long renderStart = System.nanoTime();
+			BufferedImage frame = null;
+			if (!progressive) {
+				frame = renderer.render(resolution, frames.acquire());
+			}
+			else {
+				if (changed)
+					renderer.resetRefinement();
+				if (!renderer.isRefined())
+					frame = renderer.refine((int) (1 / resolution), frames.acquire());
+			}
+			if (frame != null) {
+				if (scaled)
+					resolutionController.addFrameTime(System.nanoTime() - renderStart);
+				frames.publish(frame, renderer.getWidth(), renderer.getHeight());
+				repaint();
+			}
+
+			if (targetFrameRate > 0) {
+				long frameTime = 1_000_000_000L / targetFrameRate;
+				nextFrame += frameTime;
+				long wait = nextFrame - System.nanoTime();
+				if (wait > 0)
+					LockSupport.parkNanos(wait);
+				else if (-wait > frameTime)
+					nextFrame = System.nanoTime();
 			}
-			frame = renderer.render(resolution);
-			repaint();
 		}
 	}
 
 	@Override
 	protected void paintComponent(Graphics g) {
-		g.drawImage(frame, 0, 0, this);
+		FrameRing ring = frames;
+		BufferedImage frame = ring == null ? null : ring.present();
+		if (frame == null)
+			return;
+		int width = ring.getPresentedWidth();
+		int height = ring.getPresentedHeight();
+		if (width == getWidth() && height == getHeight()) {
+			g.drawImage(frame, 0, 0, this);
+		}
+		else {
+			((Graphics2D) g).setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+					RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g.drawImage(frame, 0, 0, getWidth(), getHeight(), 0, 0, width, height, this);
+		}
+	}
+
+	/**
+	 * Yaw and pitch the mouse turned the camera to and the movement per frame of
+	 * the held keys in camera space. Immutable, so the event dispatch thread
+	 * publishes changes by replacing it
+	 */
+	protected static final class CameraInput {
+		public final double yaw, pitch;
+		public final double moveX, moveY, moveZ;
+
+		public CameraInput(double yaw, double pitch, double moveX, double moveY, double moveZ) {
+			this.yaw = yaw;
+			this.pitch = pitch;
+			this.moveX = moveX;
+			this.moveY = moveY;
+			this.moveZ = moveZ;
+		}
+
+		public CameraInput look(double yaw, double pitch) {
+			return new CameraInput(yaw, pitch, moveX, moveY, moveZ);
+		}
+
+		public CameraInput moveX(double moveX) {
+			return new CameraInput(yaw, pitch, moveX, moveY, moveZ);
+		}
+
+		public CameraInput moveY(double moveY) {
+			return new CameraInput(yaw, pitch, moveX, moveY, moveZ);
+		}
+
+		public CameraInput moveZ(double moveZ) {
+			return new CameraInput(yaw, pitch, moveX, moveY, moveZ);
+		}
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package gameboy.core.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes 8 bit RGB PNG images. Rows are filtered with the sub filter and
+ * deflated as they arrive, and the compressed data is written out in
+ * {@code IDAT} chunks whenever the chunk buffer is full, so memory use does not
+ * grow with the image
+ */
+public class PNGStripWriter implements StripWriter {
+
+    private static final byte[] SIGNATURE = {
+            (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'
+    };
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final byte FILTER_SUB = 1;
+
+    private final OutputStream out;
+    private final int width;
+    private final byte[] row;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    private int chunkLength;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final CRC32 crc = new CRC32();
+
+    public PNGStripWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = out;
+        this.width = width;
+        this.row = new byte[1 + width * 3];
+        row[0] = FILTER_SUB;
+
+        out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, width);
+        putInt(header, 4, height);
+        header[8] = 8; // bit depth
+        header[9] = 2; // truecolour
+        writeChunk("IHDR", header, header.length);
+    }
+
+    @Override
+    public void writeStrip(int[] pixels, int rows) throws IOException {
+        for (int y = 0; y < rows; y++) {
+            int offset = y * width;
+            int red = 0, green = 0, blue = 0;
+            for (int x = 0; x < width; x++) {
+                int rgb = pixels[offset + x];
+                int i = 1 + x * 3;
+                row[i] = (byte) ((rgb >> 16) - red);
+                row[i + 1] = (byte) ((rgb >> 8) - green);
+                row[i + 2] = (byte) (rgb - blue);
+                red = rgb >> 16;
+                green = rgb >> 8;
+                blue = rgb;
+            }
+            deflater.setInput(row);
+            while (!deflater.needsInput()) {
+                deflate();
+            }
+        }
+    }
+
+    private void deflate() throws IOException {
+        chunkLength += deflater.deflate(chunk, chunkLength, chunk.length - chunkLength);
+        if (chunkLength == chunk.length)
+            flushChunk();
+    }
+
+    private void flushChunk() throws IOException {
+        if (chunkLength > 0)
+            writeChunk("IDAT", chunk, chunkLength);
+        chunkLength = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate();
+            }
+            flushChunk();
+            writeChunk("IEND", chunk, 0);
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        byte[] field = new byte[4];
+        putInt(field, 0, length);
+        out.write(field);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        putInt(field, 0, (int) crc.getValue());
+        out.write(field);
+    }
+
+    private static void putInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,41 @@
+package gameboy.core.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes binary PPM (P6) images, which are uncompressed 8 bit RGB
+ */
+public class PPMStripWriter implements StripWriter {
+
+    private final OutputStream out;
+    private final int width;
+    private final byte[] row;
+
+    public PPMStripWriter(OutputStream out, int width, int height) throws IOException {
+        this.out = out;
+        this.width = width;
+        this.row = new byte[width * 3];
+        out.write(("P6\n" + width + " " + height + "\n255\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Override
+    public void writeStrip(int[] pixels, int rows) throws IOException {
+        for (int y = 0; y < rows; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int rgb = pixels[offset + x];
+                row[x * 3] = (byte) (rgb >> 16);
+                row[x * 3 + 1] = (byte) (rgb >> 8);
+                row[x * 3 + 2] = (byte) rgb;
+            }
+            out.write(row);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,62 @@
+package gameboy.core.output;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Encodes an image that arrives as horizontal strips of packed RGB pixels, from
+ * top to bottom, so that the whole image never has to be held in memory
+ */
+public interface StripWriter extends Closeable {
+
+    /**
+     * Appends rows to the image
+     * 
+     * @param pixels {@code int[]} packed RGB pixels, one row of image width after
+     *               the other
+     * @param rows   {@code int} number of rows in pixels
+     * @throws IOException if writing fails
+     */
+    void writeStrip(int[] pixels, int rows) throws IOException;
+
+    /**
+     * Checks whether {@link #create(File, int, int)} supports the format given by
+     * the extension of {@code File} file
+     * 
+     * @param file {@code File} to be written
+     * @return {@code true} for {@code .png} and {@code .ppm} files
+     */
+    static boolean supports(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        return name.endsWith(".png") || name.endsWith(".ppm");
+    }
+
+    /**
+     * Creates a {@code StripWriter} to {@code File} file, in the format given by
+     * its extension
+     * 
+     * @param file   {@code File} to write
+     * @param width  {@code int} image width
+     * @param height {@code int} image height
+     * @return new {@code StripWriter}
+     * @throws IOException if the file cannot be created or its format is not
+     *                     supported
+     */
+    static StripWriter create(File file, int width, int height) throws IOException {
+        if (!supports(file))
+            throw new IOException("Unsupported image format: " + file.getName());
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file), 1 << 16);
+        try {
+            return file.getName().toLowerCase(Locale.ROOT).endsWith(".png") ? new PNGStripWriter(out, width, height)
+                    : new PPMStripWriter(out, width, height);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+}
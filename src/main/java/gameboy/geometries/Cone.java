@@ -5,6 +5,7 @@ import java.util.List;
 
 import gameboy.utilities.Material;
 import gameboy.utilities.Shape;
+import gameboy.utilities.math.BoundingBox;
 import gameboy.utilities.math.Ray;
 import gameboy.utilities.math.Vector3;
 
@@ -27,37 +28,61 @@ public class Cone extends Shape {
 	}
 
 	@Override
-	public Vector3 getIntersectionPoint(Ray ray) {
+	public double intersect(Ray ray, double tMin, double tMax) {
 		Vector3 rayOrigin = ray.getOrigin();
 		Vector3 rayDirection = ray.getDirection();
-		Vector3 co = rayOrigin.subtract(getAnchor());
+		Vector3 anchor = getAnchor();
+		double cox = rayOrigin.x - anchor.x;
+		double coy = rayOrigin.y - anchor.y;
+		double coz = rayOrigin.z - anchor.z;
 
-		double a = rayDirection.dot(axis) * rayDirection.dot(axis) - Math.cos(angle) * Math.cos(angle);
-		double b = 2
-				* (rayDirection.dot(axis) * co.dot(axis) - rayDirection.dot(co) * Math.cos(angle) * Math.cos(angle));
-		double c = co.dot(axis) * co.dot(axis) - co.dot(co) * Math.cos(angle) * Math.cos(angle);
+		double cos = Math.cos(angle);
+		double dirAxis = rayDirection.dot(axis);
+		double coAxis = Vector3.dot(cox, coy, coz, axis.x, axis.y, axis.z);
+		double dirCo = Vector3.dot(rayDirection.x, rayDirection.y, rayDirection.z, cox, coy, coz);
+		double coCo = Vector3.dot(cox, coy, coz, cox, coy, coz);
+
+		double a = dirAxis * dirAxis - cos * cos;
+		double b = 2 * (dirAxis * coAxis - dirCo * cos * cos);
+		double c = coAxis * coAxis - coCo * cos * cos;
 
 		double det = b * b - 4 * a * c;
 
 		if (det < 0)
-			return null;
+			return NO_HIT;
 		det = Math.sqrt(det);
 
-		double tMin = (-b - det) / (2. * a);
-		double tMax = (-b + det) / (2. * a);
-
-		double t = tMin;
-		if (t < 0 || tMax > 0 && tMax < t)
-			t = tMax;
-		if (t < 0)
-			return null;
+		double t0 = (-b - det) / (2. * a);
+		double t1 = (-b + det) / (2. * a);
+		if (t0 > t1) {
+			double temp = t0;
+			t0 = t1;
+			t1 = temp;
+		}
+
+		// Both roots may lie on the mirrored half of the double cone, so check the
+		// height of each in order
+		if (t0 >= tMin && t0 <= tMax && isWithinHeight(t0, dirAxis, coAxis))
+			return t0;
+		if (t1 >= tMin && t1 <= tMax && isWithinHeight(t1, dirAxis, coAxis))
+			return t1;
+		return NO_HIT;
+	}
 
-		Vector3 hitPoint = rayOrigin.add(rayDirection.scale(t)).subtract(getAnchor());
-		double heightAtPoint = hitPoint.dot(axis);
-		if (heightAtPoint < 0 || heightAtPoint > height)
-			return null;
+	private boolean isWithinHeight(double t, double dirAxis, double coAxis) {
+		double heightAtPoint = coAxis + t * dirAxis;
+		return heightAtPoint >= 0 && heightAtPoint <= height;
+	}
 
-		return hitPoint;
+	@Override
+	public BoundingBox getBounds() {
+		Vector3 baseCenter = getAnchor().add(axis.scale(height));
+		double baseRadius = height * Math.tan(angle);
+		Vector3 extent = new Vector3(baseRadius * Math.sqrt(Math.max(0, 1 - axis.x * axis.x)),
+				baseRadius * Math.sqrt(Math.max(0, 1 - axis.y * axis.y)),
+				baseRadius * Math.sqrt(Math.max(0, 1 - axis.z * axis.z)));
+		BoundingBox apex = new BoundingBox(getAnchor(), getAnchor());
+		return apex.union(new BoundingBox(baseCenter.subtract(extent), baseCenter.add(extent)));
 	}
 
 	@Override
@@ -67,7 +92,11 @@ public class Cone extends Shape {
 
 	@Override
 	public Vector3 getNormal(Vector3 hitPoint) {
-		Vector3 n = hitPoint.scale(axis.dot(hitPoint) / hitPoint.dot(hitPoint)).subtract(axis).normalize();
-		return n;
+		Vector3 anchor = getAnchor();
+		double hx = hitPoint.x - anchor.x;
+		double hy = hitPoint.y - anchor.y;
+		double hz = hitPoint.z - anchor.z;
+		double k = Vector3.dot(axis.x, axis.y, axis.z, hx, hy, hz) / Vector3.dot(hx, hy, hz, hx, hy, hz);
+		return new Vector3(hx * k - axis.x, hy * k - axis.y, hz * k - axis.z).normalizeLocal();
 	}
 }
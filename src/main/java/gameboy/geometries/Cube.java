@@ -5,7 +5,10 @@ import java.util.List;
 
 import gameboy.utilities.Material;
 import gameboy.utilities.Shape;
+import gameboy.utilities.math.BoundingBox;
+import gameboy.utilities.math.PacketKernel;
 import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayPacket;
 import gameboy.utilities.math.Vector3;
 
 public class Cube extends Shape {
@@ -36,24 +39,26 @@ public class Cube extends Shape {
     }
 
     @Override
-    public Vector3 getIntersectionPoint(Ray ray) {
-        double tMin = 0;
-        double tMax = Double.POSITIVE_INFINITY;
+    public double intersect(Ray ray, double tMin, double tMax) {
+        double tNear = Double.NEGATIVE_INFINITY;
+        double tFar = Double.POSITIVE_INFINITY;
         double halfSideLength = sideLength / 2d;
-
-        boolean hit = false;
+        Vector3 origin = ray.getOrigin();
+        Vector3 direction = ray.getDirection();
+        Vector3 anchor = getAnchor();
 
         for (int i = 0; i < 3; i++) {
-            if (Math.abs(ray.getDirection().toArray()[i]) < 1e-6) {
-                if (ray.getOrigin().toArray()[i] < getAnchor().toArray()[i] - halfSideLength
-                        || ray.getOrigin().toArray()[i] > getAnchor().toArray()[i] + halfSideLength)
-                    return null;
+            double o = origin.get(i);
+            double d = direction.get(i);
+            double center = anchor.get(i);
+
+            if (Math.abs(d) < 1e-6) {
+                if (o < center - halfSideLength || o > center + halfSideLength)
+                    return NO_HIT;
             }
             else {
-                double t1 = (getAnchor().toArray()[i] - halfSideLength - ray.getOrigin().toArray()[i])
-                        / ray.getDirection().toArray()[i];
-                double t2 = (getAnchor().toArray()[i] + halfSideLength - ray.getOrigin().toArray()[i])
-                        / ray.getDirection().toArray()[i];
+                double t1 = (center - halfSideLength - o) / d;
+                double t2 = (center + halfSideLength - o) / d;
 
                 if (t1 > t2) {
                     double temp = t1;
@@ -61,31 +66,34 @@ public class Cube extends Shape {
                     t2 = temp;
                 }
 
-                tMin = Math.max(tMin, t1);
-                tMax = Math.min(tMax, t2);
-
-                if (tMin > tMax)
-                    return null;
+                tNear = Math.max(tNear, t1);
+                tFar = Math.min(tFar, t2);
 
+                if (tNear > tFar || tFar < tMin || tNear > tMax)
+                    return NO_HIT;
             }
-
-            if (tMin > 0)
-                hit = true;
         }
 
-        if (hit)
-            return ray.getOrigin().add(ray.getDirection().scale(tMin));
-        return null;
+        if (tNear >= tMin)
+            return tNear;
+        if (tFar <= tMax)
+            return tFar;
+        return NO_HIT;
+    }
+
+    @Override
+    public void intersect(RayPacket packet, PacketKernel kernel) {
+        Vector3 anchor = getAnchor();
+        kernel.intersectCube(packet, anchor.x, anchor.y, anchor.z, sideLength / 2d);
     }
 
     public int determineCubeSide(Vector3 point) {
-        double[] pointArray = point.toArray();
-        double[] anchorArray = getAnchor().toArray();
+        Vector3 anchor = getAnchor();
 
         double maxDistance = 0;
         int maxAxis = -1;
         for (int i = 0; i < 3; i++) {
-            double distance = Math.abs(pointArray[i] - anchorArray[i]);
+            double distance = Math.abs(point.get(i) - anchor.get(i));
             if (distance > maxDistance) {
                 maxDistance = distance;
                 maxAxis = i;
@@ -93,13 +101,13 @@ public class Cube extends Shape {
         }
 
         if (maxAxis == 0) {
-            return pointArray[0] > anchorArray[0] ? 0 : 1;
+            return point.x > anchor.x ? 0 : 1;
         }
         else if (maxAxis == 1) {
-            return pointArray[1] > anchorArray[1] ? 2 : 3;
+            return point.y > anchor.y ? 2 : 3;
         }
         else {
-            return pointArray[2] > anchorArray[2] ? 4 : 5;
+            return point.z > anchor.z ? 4 : 5;
         }
     }
 
@@ -124,11 +132,19 @@ public class Cube extends Shape {
         }
     }
 
+    @Override
+    public BoundingBox getBounds() {
+        double halfSideLength = sideLength / 2d;
+        Vector3 extent = new Vector3(halfSideLength, halfSideLength, halfSideLength);
+        return new BoundingBox(getAnchor().subtract(extent), getAnchor().add(extent));
+    }
+
     public double getSideLength() {
         return sideLength;
     }
 
     public void setSideLength(double value) {
         this.sideLength = value;
+        notifyChanged();
     }
 }
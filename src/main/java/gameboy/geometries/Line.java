@@ -36,8 +36,11 @@ public class Line extends Shape {
     }
 
     @Override
-    public Vector3 getIntersectionPoint(Ray ray) {
-        return ray.intersection(toRay());
+    public double intersect(Ray ray, double tMin, double tMax) {
+        double t = ray.intersectionDistance(toRay());
+        if (t < tMin || t > tMax)
+            return NO_HIT;
+        return t;
     }
 
     public Ray toRay() {
@@ -5,7 +5,9 @@ import java.util.List;
 
 import gameboy.utilities.Material;
 import gameboy.utilities.Shape;
+import gameboy.utilities.math.PacketKernel;
 import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayPacket;
 import gameboy.utilities.math.Vector3;
 
 public class Plane extends Shape {
@@ -23,7 +25,7 @@ public class Plane extends Shape {
     }
 
     @Override
-    public Vector3 getIntersectionPoint(Ray ray) {
+    public double intersect(Ray ray, double tMin, double tMax) {
         Vector3 rayOrigin = ray.getOrigin();
         Vector3 rayDirection = ray.getDirection();
         Vector3 planePoint = getAnchor();
@@ -31,14 +33,21 @@ public class Plane extends Shape {
 
         double denominator = rayDirection.dot(planeNormal);
         if (Math.abs(denominator) < 1e-6)
-            return null;
+            return NO_HIT;
 
-        double numerator = planePoint.subtract(rayOrigin).dot(planeNormal);
+        double numerator = Vector3.dot(planePoint.x - rayOrigin.x, planePoint.y - rayOrigin.y,
+                planePoint.z - rayOrigin.z, planeNormal.x, planeNormal.y, planeNormal.z);
         double t = numerator / denominator;
 
-        if (t < 0)
-            return null;
-        return rayOrigin.add(rayDirection.scale(t));
+        if (t < tMin || t > tMax)
+            return NO_HIT;
+        return t;
+    }
+
+    @Override
+    public void intersect(RayPacket packet, PacketKernel kernel) {
+        Vector3 anchor = getAnchor();
+        kernel.intersectPlane(packet, anchor.x, anchor.y, anchor.z, axis.x, axis.y, axis.z);
     }
 
     public Vector3 getAxis() {
@@ -52,5 +61,6 @@ public class Plane extends Shape {
 
     public void setAxis(Vector3 axis) {
         this.axis = axis;
+        notifyChanged();
     }
 }
@@ -5,7 +5,10 @@ import java.util.List;
 
 import gameboy.utilities.Material;
 import gameboy.utilities.Shape;
+import gameboy.utilities.math.BoundingBox;
+import gameboy.utilities.math.PacketKernel;
 import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayPacket;
 import gameboy.utilities.math.Vector3;
 
 public class Sphere extends Shape {
@@ -23,25 +26,47 @@ public class Sphere extends Shape {
     }
 
     @Override
-    public Vector3 getIntersectionPoint(Ray ray) {
-        Vector3 oc = ray.getOrigin().subtract(getAnchor());
-        double a = ray.getDirection().dot(ray.getDirection());
-        double b = 2.0 * oc.dot(ray.getDirection());
-        double c = oc.dot(oc) - radius * radius;
+    public double intersect(Ray ray, double tMin, double tMax) {
+        Vector3 origin = ray.getOrigin();
+        Vector3 direction = ray.getDirection();
+        Vector3 anchor = getAnchor();
+        double ocx = origin.x - anchor.x;
+        double ocy = origin.y - anchor.y;
+        double ocz = origin.z - anchor.z;
+        double a = Vector3.dot(direction.x, direction.y, direction.z, direction.x, direction.y, direction.z);
+        double b = 2.0 * Vector3.dot(ocx, ocy, ocz, direction.x, direction.y, direction.z);
+        double c = Vector3.dot(ocx, ocy, ocz, ocx, ocy, ocz) - radius * radius;
 
         double discriminant = b * b - 4 * a * c;
         if (discriminant < 0) {
-            return null;
+            return NO_HIT;
         }
-        double t = (-b - Math.sqrt(discriminant)) / (2.0 * a);
-        if (t >= 0)
-            return ray.getOrigin().add(ray.getDirection().scale(t));
-        return null;
+        double root = Math.sqrt(discriminant);
+        double t = (-b - root) / (2.0 * a);
+        if (t >= tMin && t <= tMax)
+            return t;
+        t = (-b + root) / (2.0 * a);
+        if (t >= tMin && t <= tMax)
+            return t;
+        return NO_HIT;
+    }
+
+    @Override
+    public void intersect(RayPacket packet, PacketKernel kernel) {
+        Vector3 anchor = getAnchor();
+        kernel.intersectSphere(packet, anchor.x, anchor.y, anchor.z, radius);
     }
 
     @Override
     public Vector3 getNormal(Vector3 hitPoint) {
-        return hitPoint.subtract(getAnchor()).normalize();
+        Vector3 anchor = getAnchor();
+        return new Vector3(hitPoint.x - anchor.x, hitPoint.y - anchor.y, hitPoint.z - anchor.z).normalizeLocal();
+    }
+
+    @Override
+    public BoundingBox getBounds() {
+        Vector3 extent = new Vector3(radius, radius, radius);
+        return new BoundingBox(getAnchor().subtract(extent), getAnchor().add(extent));
     }
 
     public double getRadius() {
@@ -50,5 +75,6 @@ public class Sphere extends Shape {
 
     public void setRadius(double radius) {
         this.radius = radius;
+        notifyChanged();
     }
 }
@@ -0,0 +1,169 @@
+package gameboy.lights;
+
+import java.util.Arrays;
+
+import gameboy.utilities.Shape;
+import gameboy.utilities.data.BVH;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Template of the classes {@link Lighting#compile(java.util.List, ShadowMaps)}
+ * generates. It is never loaded by name: every compile defines a new hidden
+ * class from its bytes, whose static initializer takes one light configuration
+ * into {@code static final} fields, one per anchor component, color and shadow
+ * map of each of the first {@link #MAX_LIGHTS} lights. The JIT compiler folds
+ * {@code static final} scalars and references into the code as constants,
+ * unlike the elements of {@code static final} arrays, so the checks on
+ * {@code COUNT} and the shadow maps disappear and each light is shaded with its
+ * anchor and color as immediates. Further lights go through a generic
+ * {@code Lighting}.
+ */
+final class CompiledLighting extends Lighting {
+
+    /** Number of lights held in constants, see {@link Configuration} */
+    static final int MAX_LIGHTS = 8;
+
+    private static final int COUNT;
+    private static final double X0, Y0, Z0;
+    private static final int COLOR0;
+    private static final ShadowMap MAP0;
+    private static final double X1, Y1, Z1;
+    private static final int COLOR1;
+    private static final ShadowMap MAP1;
+    private static final double X2, Y2, Z2;
+    private static final int COLOR2;
+    private static final ShadowMap MAP2;
+    private static final double X3, Y3, Z3;
+    private static final int COLOR3;
+    private static final ShadowMap MAP3;
+    private static final double X4, Y4, Z4;
+    private static final int COLOR4;
+    private static final ShadowMap MAP4;
+    private static final double X5, Y5, Z5;
+    private static final int COLOR5;
+    private static final ShadowMap MAP5;
+    private static final double X6, Y6, Z6;
+    private static final int COLOR6;
+    private static final ShadowMap MAP6;
+    private static final double X7, Y7, Z7;
+    private static final int COLOR7;
+    private static final ShadowMap MAP7;
+    /** Lights after the first {@link #MAX_LIGHTS}, {@code null} if there are none */
+    private static final Lighting REST;
+    /** Last occluder of each light on the current thread and its BVH */
+    private static final ThreadLocal<Object[]> OCCLUDERS;
+
+    static {
+        Configuration configuration = takePending();
+        COUNT = Math.min(configuration.count(), MAX_LIGHTS);
+        X0 = configuration.anchor(0, 0);
+        Y0 = configuration.anchor(0, 1);
+        Z0 = configuration.anchor(0, 2);
+        COLOR0 = configuration.color(0);
+        MAP0 = configuration.map(0);
+        X1 = configuration.anchor(1, 0);
+        Y1 = configuration.anchor(1, 1);
+        Z1 = configuration.anchor(1, 2);
+        COLOR1 = configuration.color(1);
+        MAP1 = configuration.map(1);
+        X2 = configuration.anchor(2, 0);
+        Y2 = configuration.anchor(2, 1);
+        Z2 = configuration.anchor(2, 2);
+        COLOR2 = configuration.color(2);
+        MAP2 = configuration.map(2);
+        X3 = configuration.anchor(3, 0);
+        Y3 = configuration.anchor(3, 1);
+        Z3 = configuration.anchor(3, 2);
+        COLOR3 = configuration.color(3);
+        MAP3 = configuration.map(3);
+        X4 = configuration.anchor(4, 0);
+        Y4 = configuration.anchor(4, 1);
+        Z4 = configuration.anchor(4, 2);
+        COLOR4 = configuration.color(4);
+        MAP4 = configuration.map(4);
+        X5 = configuration.anchor(5, 0);
+        Y5 = configuration.anchor(5, 1);
+        Z5 = configuration.anchor(5, 2);
+        COLOR5 = configuration.color(5);
+        MAP5 = configuration.map(5);
+        X6 = configuration.anchor(6, 0);
+        Y6 = configuration.anchor(6, 1);
+        Z6 = configuration.anchor(6, 2);
+        COLOR6 = configuration.color(6);
+        MAP6 = configuration.map(6);
+        X7 = configuration.anchor(7, 0);
+        Y7 = configuration.anchor(7, 1);
+        Z7 = configuration.anchor(7, 2);
+        COLOR7 = configuration.color(7);
+        MAP7 = configuration.map(7);
+        REST = configuration.rest(MAX_LIGHTS);
+        // No lambdas, their classes could not resolve this hidden class by name
+        OCCLUDERS = new ThreadLocal<>();
+    }
+
+    @Override
+    public void illuminate(Vector3 point, Vector3 normal, Vector3 view, double shininess, BVH objects,
+            Shape ignore, double[] light) {
+        Vector3 lightDirection = lightDirection();
+        if (COUNT > 0)
+            addLight(X0, Y0, Z0, COLOR0, MAP0, 0, lightDirection, point, normal, view, shininess, objects, ignore,
+                    light);
+        if (COUNT > 1)
+            addLight(X1, Y1, Z1, COLOR1, MAP1, 1, lightDirection, point, normal, view, shininess, objects, ignore,
+                    light);
+        if (COUNT > 2)
+            addLight(X2, Y2, Z2, COLOR2, MAP2, 2, lightDirection, point, normal, view, shininess, objects, ignore,
+                    light);
+        if (COUNT > 3)
+            addLight(X3, Y3, Z3, COLOR3, MAP3, 3, lightDirection, point, normal, view, shininess, objects, ignore,
+                    light);
+        if (COUNT > 4)
+            addLight(X4, Y4, Z4, COLOR4, MAP4, 4, lightDirection, point, normal, view, shininess, objects, ignore,
+                    light);
+        if (COUNT > 5)
+            addLight(X5, Y5, Z5, COLOR5, MAP5, 5, lightDirection, point, normal, view, shininess, objects, ignore,
+                    light);
+        if (COUNT > 6)
+            addLight(X6, Y6, Z6, COLOR6, MAP6, 6, lightDirection, point, normal, view, shininess, objects, ignore,
+                    light);
+        if (COUNT > 7)
+            addLight(X7, Y7, Z7, COLOR7, MAP7, 7, lightDirection, point, normal, view, shininess, objects, ignore,
+                    light);
+        if (REST != null)
+            REST.illuminate(point, normal, view, shininess, objects, ignore, light);
+    }
+
+    /**
+     * Adds the light of the light at index with anchor x, y, z, which is inlined
+     * into {@link #illuminate} once per light with its constants
+     */
+    private static void addLight(double x, double y, double z, int color, ShadowMap shadowMap, int index,
+            Vector3 lightDirection, Vector3 point, Vector3 normal, Vector3 view, double shininess, BVH objects,
+            Shape ignore, double[] light) {
+        lightDirection.set(x - point.x, y - point.y, z - point.z);
+        double lightDistance = lightDirection.magnitude();
+        lightDirection.normalizeLocal();
+        double visibility;
+        if (shadowMap != null) {
+            visibility = shadowMap.getVisibility(point, normal.dot(lightDirection));
+        }
+        else {
+            Object[] occluders = OCCLUDERS.get();
+            if (occluders == null) {
+                occluders = new Object[MAX_LIGHTS + 1];
+                OCCLUDERS.set(occluders);
+            }
+            if (occluders[MAX_LIGHTS] != objects) {
+                Arrays.fill(occluders, null);
+                occluders[MAX_LIGHTS] = objects;
+            }
+            Shape occluder = findOccluder(point, lightDirection, lightDistance, objects, ignore,
+                    (Shape) occluders[index]);
+            if (occluder != null)
+                occluders[index] = occluder;
+            visibility = occluder != null ? 0 : 1;
+        }
+        if (visibility > 0)
+            addLight(normal, view, lightDirection, color, visibility, shininess, light);
+    }
+}
@@ -7,10 +7,13 @@ import gameboy.utilities.math.Vector3;
 public class Light {
     private Vector3 anchor;
     private Color color;
+    /** Light of the edited {@code Scene} this one is a snapshot copy of */
+    private final Light source;
 
     public Light(Vector3 anchor) {
         this.anchor = anchor;
         this.color = Color.WHITE;
+        this.source = this;
     }
 
     public void setAnchor(Vector3 anchor) {
@@ -20,6 +23,13 @@ public class Light {
     public Light(Vector3 anchor, Color color) {
         this.anchor = anchor;
         this.color = color;
+        this.source = this;
+    }
+
+    private Light(Light source) {
+        this.anchor = source.anchor;
+        this.color = source.color;
+        this.source = source.source;
     }
 
     public Vector3 getAnchor() {
@@ -34,6 +44,27 @@ public class Light {
         return color;
     }
 
+    /**
+     * Creates a {@code Light} at the same anchor with the same color, used for
+     * snapshots of a {@code Scene}. The copy has the same
+     * {@link #getSource()}
+     * 
+     * @return {@code Light} copy
+     */
+    public Light copy() {
+        return new Light(this);
+    }
+
+    /**
+     * Gets the {@code Light} this one was copied from, following copies of
+     * copies, so every snapshot of a light has the same source
+     * 
+     * @return {@code Light} source, this {@code Light} if it is not a copy
+     */
+    public Light getSource() {
+        return source;
+    }
+
     @Override
     public String toString() {
         return getClass().getName().replace("gameboy.lights.", "") + "@" + Integer.toHexString(hashCode());
@@ -0,0 +1,313 @@
+package gameboy.lights;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gameboy.utilities.Color;
+import gameboy.utilities.GlobalSettings;
+import gameboy.utilities.Shape;
+import gameboy.utilities.data.BVH;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Diffuse and specular light arriving at surface points from the {@code Light}s
+ * of a {@code Scene}, including their shadows. {@link #of(List, ShadowMaps)}
+ * reads the lights on every call, {@link #compile(List, ShadowMaps)} generates a
+ * class per light configuration instead, with the number of lights and the
+ * anchor components, color and shadow map of each light held in
+ * {@code static final} fields, so the JIT compiler sees them as constants and
+ * shades every light with straight-line code. Only the lights are specialised:
+ * the {@code Material} of a hit changes from pixel to pixel, so
+ * {@code Material.shade} still reads colors, normals and reflectivity through
+ * virtual calls, which the JIT compiler inlines for the few material classes a
+ * scene uses.
+ */
+public abstract class Lighting {
+
+    private static final ThreadLocal<OccluderCache> OCCLUDERS = ThreadLocal.withInitial(OccluderCache::new);
+    private static final ThreadLocal<Vector3> LIGHT_DIRECTIONS = ThreadLocal.withInitial(() -> new Vector3(0, 0, 0));
+    private static final ThreadLocal<Ray> SHADOW_RAYS = ThreadLocal
+            .withInitial(() -> new Ray(new Vector3(0, 0, 0), new Vector3(0, 0, 1)));
+    private static final MethodHandle DEFINE_HIDDEN_CLASS = findDefineHiddenClass();
+    private static final Object LOCK = new Object();
+    private static byte[] template;
+    private static Configuration pending;
+
+    /**
+     * Adds the light of all lights reaching {@code Vector3} point to light:
+     * diffuse intensity to {@code light[0]} and the red, green and blue specular
+     * intensity, scaled by 255, to {@code light[1]} to {@code light[3]}
+     *
+     * @param point     {@code Vector3} point on a surface
+     * @param normal    {@code Vector3} unit surface normal at point
+     * @param view      {@code Vector3} unit direction of the ray that hit point
+     * @param shininess {@code double} specular exponent of the surface
+     * @param objects   {@code BVH} shadow rays are traced through
+     * @param ignore    {@code Shape} skipped by shadow rays, may be {@code null}
+     * @param light     {@code double[]} of at least 4 elements to add to
+     */
+    public abstract void illuminate(Vector3 point, Vector3 normal, Vector3 view, double shininess, BVH objects,
+            Shape ignore, double[] light);
+
+    /**
+     * Gets a {@code Lighting} that reads {@code List<Light>} lights on every
+     * call, so it never has to be updated
+     *
+     * @param lights  {@code List<Light>} of the scene
+     * @param shadows {@code ShadowMaps} of the scene, {@code null} traces all
+     *                shadows
+     * @return generic {@code Lighting}
+     */
+    public static Lighting of(List<Light> lights, ShadowMaps shadows) {
+        return new ListLighting(lights, shadows);
+    }
+
+    /**
+     * Generates a {@code Lighting} specialised to the current anchors and colors
+     * of {@code List<Light>} lights, which has to be compiled again once they
+     * change. Hidden classes need Java 15, older runtimes get the generic
+     * {@code Lighting} of {@link #of(List, ShadowMaps)}
+     *
+     * @param lights  {@code List<Light>} of the scene
+     * @param shadows {@code ShadowMaps} of the scene, {@code null} traces all
+     *                shadows
+     * @return specialised {@code Lighting}
+     */
+    public static Lighting compile(List<Light> lights, ShadowMaps shadows) {
+        if (DEFINE_HIDDEN_CLASS == null)
+            return of(lights, shadows);
+
+        Configuration configuration = new Configuration(lights, shadows);
+        synchronized (LOCK) {
+            try {
+                if (template == null)
+                    template = readTemplate();
+                // The static initializer of the new class takes the pending configuration
+                pending = configuration;
+                MethodHandles.Lookup lookup = (MethodHandles.Lookup) DEFINE_HIDDEN_CLASS
+                        .invoke(MethodHandles.lookup(), template, true);
+                return (Lighting) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                        .invoke();
+            } catch (ReflectiveOperationException | IOException e) {
+                return of(lights, shadows);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new AssertionError(e);
+            } finally {
+                pending = null;
+            }
+        }
+    }
+
+    /**
+     * Gets the configuration of the class that is being compiled, only to be
+     * called by the static initializer of {@code CompiledLighting}
+     */
+    static Configuration takePending() {
+        return pending;
+    }
+
+    private static MethodHandle findDefineHiddenClass() {
+        try {
+            // Lookup.defineHiddenClass and ClassOption only exist since Java 15
+            Class<?> option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            Class<?> options = Array.newInstance(option, 0).getClass();
+            MethodHandle define = MethodHandles.publicLookup().findVirtual(MethodHandles.Lookup.class,
+                    "defineHiddenClass",
+                    MethodType.methodType(MethodHandles.Lookup.class, byte[].class, boolean.class, options));
+            return MethodHandles.insertArguments(define, 3, Array.newInstance(option, 0));
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static byte[] readTemplate() throws IOException {
+        try (InputStream in = Lighting.class.getResourceAsStream("CompiledLighting.class")) {
+            if (in == null)
+                throw new IOException("CompiledLighting.class not found");
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] chunk = new byte[4096];
+            for (int read; (read = in.read(chunk)) > 0;) {
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    /**
+     * Gets the {@code Vector3} of the current thread that light directions are
+     * computed in
+     */
+    static Vector3 lightDirection() {
+        return LIGHT_DIRECTIONS.get();
+    }
+
+    /**
+     * Adds the diffuse and specular light of one light at unit direction
+     * lightDirection, with a packed lightColor, weighted by its visibility
+     */
+    static void addLight(Vector3 normal, Vector3 view, Vector3 lightDirection, int lightColor, double visibility,
+            double shininess, double[] light) {
+        light[0] += visibility * Math.max(0, normal.dot(lightDirection));
+
+        double lightDotNormal = 2 * lightDirection.dot(normal);
+        double rx = lightDirection.x - normal.x * lightDotNormal;
+        double ry = lightDirection.y - normal.y * lightDotNormal;
+        double rz = lightDirection.z - normal.z * lightDotNormal;
+        double magnitude = Math.sqrt(rx * rx + ry * ry + rz * rz);
+        double specularFactor = Math.pow(Math.max(0,
+                Vector3.dot(view.x, view.y, view.z, rx / magnitude, ry / magnitude, rz / magnitude)), shininess);
+        double specular = visibility * (GlobalSettings.SPECULAR_STRENGTH * specularFactor);
+
+        light[1] += Color.red(lightColor) * specular;
+        light[2] += Color.green(lightColor) * specular;
+        light[3] += Color.blue(lightColor) * specular;
+    }
+
+    /**
+     * Traces a shadow ray from point towards a light at lightDistance, testing
+     * {@code Shape} hint first. The shadow ray is reused on each thread, as it
+     * never outlives the search
+     *
+     * @return blocking {@code Shape}, {@code null} if the light is visible
+     */
+    static Shape findOccluder(Vector3 point, Vector3 lightDirection, double lightDistance, BVH objects,
+            Shape ignore, Shape hint) {
+        Ray shadowRay = SHADOW_RAYS.get().set(point.x + lightDirection.x * 1e-4, point.y + lightDirection.y * 1e-4,
+                point.z + lightDirection.z * 1e-4, lightDirection, ignore);
+        return objects.findOccluder(shadowRay, 0, lightDistance - 1e-4, hint);
+    }
+
+    /**
+     * Loops over the lights of a {@code List<Light>}, looking their colors and
+     * shadow maps up for every point
+     */
+    private static class ListLighting extends Lighting {
+
+        private final List<Light> lights;
+        private final ShadowMaps shadows;
+
+        ListLighting(List<Light> lights, ShadowMaps shadows) {
+            this.lights = lights;
+            this.shadows = shadows;
+        }
+
+        @Override
+        public void illuminate(Vector3 point, Vector3 normal, Vector3 view, double shininess, BVH objects,
+                Shape ignore, double[] light) {
+            Vector3 lightDirection = lightDirection();
+            for (int i = 0; i < lights.size(); i++) {
+                Light current = lights.get(i);
+                Vector3 lightAnchor = current.getAnchor();
+                lightDirection.set(lightAnchor.x - point.x, lightAnchor.y - point.y, lightAnchor.z - point.z);
+                double lightDistance = lightDirection.magnitude();
+                lightDirection.normalizeLocal();
+                ShadowMap shadowMap = shadows != null ? shadows.get(current) : null;
+                double visibility;
+                if (shadowMap != null) {
+                    visibility = shadowMap.getVisibility(point, normal.dot(lightDirection));
+                }
+                else {
+                    OccluderCache cache = OCCLUDERS.get();
+                    Shape occluder = findOccluder(point, lightDirection, lightDistance, objects, ignore,
+                            cache.get(objects, current));
+                    if (occluder != null)
+                        cache.put(current, occluder);
+                    visibility = occluder != null ? 0 : 1;
+                }
+                if (visibility > 0)
+                    addLight(normal, view, lightDirection, current.getColor().toRGB(), visibility, shininess, light);
+            }
+        }
+    }
+
+    /**
+     * Remembers the last {@code Shape} that blocked each {@code Light} on the
+     * current thread. Neighbouring pixels are usually blocked by the same
+     * {@code Shape}, so it is tested before the {@code BVH} is traversed
+     */
+    private static class OccluderCache {
+        private BVH objects;
+        private Map<Light, Shape> occluders = new IdentityHashMap<>();
+
+        public Shape get(BVH objects, Light light) {
+            if (this.objects != objects) {
+                this.objects = objects;
+                occluders.clear();
+            }
+            return occluders.get(light);
+        }
+
+        public void put(Light light, Shape occluder) {
+            occluders.put(light, occluder);
+        }
+    }
+
+    /**
+     * Snapshot of the lights a {@code CompiledLighting} is generated for
+     */
+    static final class Configuration {
+        private final double[] anchors;
+        private final int[] colors;
+        private final ShadowMap[] maps;
+        private final List<Light> lights;
+        private final ShadowMaps shadows;
+
+        Configuration(List<Light> lights, ShadowMaps shadows) {
+            int count = lights.size();
+            anchors = new double[count * 3];
+            colors = new int[count];
+            maps = new ShadowMap[count];
+            for (int i = 0; i < count; i++) {
+                Light light = lights.get(i);
+                anchors[i * 3] = light.getAnchor().x;
+                anchors[i * 3 + 1] = light.getAnchor().y;
+                anchors[i * 3 + 2] = light.getAnchor().z;
+                colors[i] = light.getColor().toRGB();
+                maps[i] = shadows != null ? shadows.get(light) : null;
+            }
+            this.lights = new ArrayList<>(lights);
+            this.shadows = shadows;
+        }
+
+        int count() {
+            return colors.length;
+        }
+
+        /**
+         * Gets component axis of the anchor of the light at index, 0 if there is no
+         * such light
+         */
+        double anchor(int index, int axis) {
+            return index < colors.length ? anchors[index * 3 + axis] : 0;
+        }
+
+        int color(int index) {
+            return index < colors.length ? colors[index] : 0;
+        }
+
+        ShadowMap map(int index) {
+            return index < colors.length ? maps[index] : null;
+        }
+
+        /**
+         * Gets a generic {@code Lighting} of the lights from index from on
+         * 
+         * @return {@code Lighting}, {@code null} if there are no such lights
+         */
+        Lighting rest(int from) {
+            return from < lights.size() ? of(lights.subList(from, lights.size()), shadows) : null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package gameboy.lights;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import gameboy.utilities.data.BVH;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Omnidirectional depth map of a {@code Light}: six square faces around the
+ * light, one per axis direction, each texel holding the distance from the light
+ * to the closest surface in its direction. A point is lit if it is not farther
+ * from the light than the surface stored for its direction.
+ */
+public class ShadowMap {
+
+    private static final double CONSTANT_BIAS = 1e-3;
+    private static final double MAX_SLOPE = 8;
+    private static final int ROWS_PER_TASK = 8;
+
+    private final int size;
+    private final float[] depths;
+    private double lightX, lightY, lightZ;
+
+    /**
+     * @param size {@code int} width and height of each face in texels
+     */
+    public ShadowMap(int size) {
+        this.size = size;
+        this.depths = new float[6 * size * size];
+    }
+
+    /**
+     * Renders the distances around {@code Light} light, tracing one ray per texel
+     * through {@code BVH} objects on {@code ForkJoinPool} pool
+     *
+     * @param light   {@code Light} the map is rendered from
+     * @param objects {@code BVH} of the scene
+     * @param pool    {@code ForkJoinPool} to trace on
+     */
+    public void build(Light light, BVH objects, ForkJoinPool pool) {
+        Vector3 anchor = light.getAnchor();
+        lightX = anchor.x;
+        lightY = anchor.y;
+        lightZ = anchor.z;
+        pool.invoke(new RowTask(objects, 0, 6 * size));
+    }
+
+    /**
+     * Checks whether {@code Light} light was moved since this map was built
+     *
+     * @param light {@code Light} the map was built for
+     * @return {@code true} if the map has to be rebuilt
+     */
+    public boolean isOutdated(Light light) {
+        Vector3 anchor = light.getAnchor();
+        return anchor.x != lightX || anchor.y != lightY || anchor.z != lightZ;
+    }
+
+    private void renderRow(BVH objects, int row) {
+        int face = row / size;
+        double v = (row % size + 0.5) / size * 2 - 1;
+        Vector3 origin = new Vector3(lightX, lightY, lightZ);
+        for (int x = 0; x < size; x++) {
+            double u = (x + 0.5) / size * 2 - 1;
+            Vector3 direction;
+            switch (face) {
+            case 0:
+            case 1:
+                direction = new Vector3(face == 0 ? 1 : -1, u, v);
+                break;
+            case 2:
+            case 3:
+                direction = new Vector3(u, face == 2 ? 1 : -1, v);
+                break;
+            default:
+                direction = new Vector3(u, v, face == 4 ? 1 : -1);
+            }
+            RayHit hit = new Ray(origin, direction).cast(objects);
+            depths[row * size + x] = hit == null ? Float.POSITIVE_INFINITY : (float) hit.getDistance();
+        }
+    }
+
+    /**
+     * Gets the fraction of {@code Vector3} point that is lit by the light, from
+     * the four texels around its direction weighted bilinearly, so shadow edges
+     * are smoothed over about one texel
+     *
+     * @param point  {@code Vector3} point on a surface
+     * @param cosine {@code double} cosine between the surface normal and the
+     *               direction to the light, used to grow the depth bias on
+     *               surfaces the light grazes
+     * @return {@code double} visibility from 0 (in shadow) to 1 (lit)
+     */
+    public double getVisibility(Vector3 point, double cosine) {
+        double dx = point.x - lightX;
+        double dy = point.y - lightY;
+        double dz = point.z - lightZ;
+        double distance = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        double ax = Math.abs(dx), ay = Math.abs(dy), az = Math.abs(dz);
+
+        int face;
+        double major, u, v;
+        if (ax >= ay && ax >= az) {
+            face = dx >= 0 ? 0 : 1;
+            major = ax;
+            u = dy;
+            v = dz;
+        }
+        else if (ay >= az) {
+            face = dy >= 0 ? 2 : 3;
+            major = ay;
+            u = dx;
+            v = dz;
+        }
+        else {
+            face = dz >= 0 ? 4 : 5;
+            major = az;
+            u = dx;
+            v = dy;
+        }
+        if (major == 0)
+            return 1;
+
+        double fx = (u / major + 1) * 0.5 * size - 0.5;
+        double fy = (v / major + 1) * 0.5 * size - 0.5;
+        int x0 = (int) Math.floor(fx);
+        int y0 = (int) Math.floor(fy);
+        double wx = fx - x0;
+        double wy = fy - y0;
+
+        // One texel covers about distance * 2 / size, tilted surfaces move
+        // further in depth across it
+        double c = Math.max(Math.abs(cosine), 1 / MAX_SLOPE);
+        double slope = Math.sqrt(1 - c * c) / c;
+        double depth = distance - CONSTANT_BIAS - distance * 2.0 / size * (1 + slope);
+
+        return (1 - wx) * (1 - wy) * lit(face, x0, y0, depth) + wx * (1 - wy) * lit(face, x0 + 1, y0, depth)
+                + (1 - wx) * wy * lit(face, x0, y0 + 1, depth) + wx * wy * lit(face, x0 + 1, y0 + 1, depth);
+    }
+
+    private double lit(int face, int x, int y, double depth) {
+        x = Math.min(size - 1, Math.max(0, x));
+        y = Math.min(size - 1, Math.max(0, y));
+        return depth <= depths[(face * size + y) * size + x] ? 1 : 0;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    private class RowTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final BVH objects;
+        private final int from, to;
+
+        RowTask(BVH objects, int from, int to) {
+            this.objects = objects;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                for (int row = from; row < to; row++) {
+                    renderRow(objects, row);
+                }
+            }
+            else {
+                int mid = from + (to - from) / 2;
+                invokeAll(new RowTask(objects, from, mid), new RowTask(objects, mid, to));
+            }
+        }
+    }
+}
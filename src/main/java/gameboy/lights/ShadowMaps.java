@@ -0,0 +1,79 @@
+package gameboy.lights;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import gameboy.utilities.Scene;
+import gameboy.utilities.data.BVH;
+
+/**
+ * {@link ShadowMap}s for all {@code Light}s of a {@code Scene}, answering
+ * shadow queries by lookup instead of tracing a shadow ray. A map is only
+ * rebuilt when its light moved or the geometry of the scene changed, so moving
+ * the camera through a scene keeps all maps. Maps are kept by the
+ * {@link Light#getSource()} of their light, so snapshots of a {@code Scene}
+ * that copied a light, for example because its color changed, keep its map.
+ */
+public class ShadowMaps {
+
+    private final int size;
+    private final Map<Light, ShadowMap> maps = new IdentityHashMap<>();
+    private Object geometry;
+    private int refitCount;
+
+    /**
+     * @param size {@code int} width and height of each cube face in texels
+     */
+    public ShadowMaps(int size) {
+        this.size = size;
+    }
+
+    /**
+     * Brings the maps up to date with {@code Scene} scene, rendering the maps of
+     * new and moved lights, or of all lights if the geometry changed. Has to be
+     * called before rendering, not while frames are being shaded
+     *
+     * @param scene {@code Scene} to be rendered
+     * @param pool  {@code ForkJoinPool} to render the maps on
+     */
+    public void update(Scene scene, ForkJoinPool pool) {
+        // The BVH is rebuilt or refit whenever a shape was added, moved or resized
+        BVH current = scene.getBVH();
+        boolean geometryChanged = current.getGeometry() != geometry || current.getRefitCount() != refitCount;
+        geometry = current.getGeometry();
+        refitCount = current.getRefitCount();
+
+        List<Light> lights = scene.getLights();
+        Set<Light> sources = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Light light : lights) {
+            sources.add(light.getSource());
+        }
+        maps.keySet().retainAll(sources);
+        for (Light light : lights) {
+            ShadowMap map = maps.get(light.getSource());
+            if (map == null) {
+                map = new ShadowMap(size);
+                map.build(light, current, pool);
+                maps.put(light.getSource(), map);
+            }
+            else if (geometryChanged || map.isOutdated(light)) {
+                map.build(light, current, pool);
+            }
+        }
+    }
+
+    /**
+     * Gets the {@code ShadowMap} of {@code Light} light
+     *
+     * @param light {@code Light} of the scene
+     * @return {@code ShadowMap}, {@code null} if the light was added after the
+     *         last {@link #update(Scene, ForkJoinPool)}
+     */
+    public ShadowMap get(Light light) {
+        return maps.get(light.getSource());
+    }
+}
@@ -26,13 +26,20 @@ public class CheckerMaterial extends Material {
 
 	@Override
 	public Color getColor(Vector3 point) {
+		return isEven(point) ? color : secColor;
+	}
+
+	@Override
+	public int getRGB(Vector3 point) {
+		return isEven(point) ? color.toRGB() : secColor.toRGB();
+	}
+
+	private boolean isEven(Vector3 point) {
 		double x = Math.floor(point.x * (1 / gridsize) + 1e-6);
 		double y = Math.floor(point.y * (1 / gridsize) + 1e-6);
 		double z = Math.floor(point.z * (1 / gridsize) + 1e-6);
 
-		boolean isEven = (x + y + z) % 2 == 0;
-
-		return isEven ? color : secColor;
+		return (x + y + z) % 2 == 0;
 	}
 
 	public double getGridsize() {
@@ -7,20 +7,40 @@ import gameboy.utilities.math.Vector3;
 
 public class CubeMaterial extends Material {
 
+	private static final Color[] COLORS = {
+			// x+, x-, y+, y-, z+, z-
+			Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW, Color.PINK, Color.MAGENTA
+	};
+	private static final int[] RGB = Color.toRGB(COLORS);
+
 	public CubeMaterial() {
 		super(Color.WHITE);
 	}
 
 	@Override
 	public Color getColor(Vector3 point) {
+		return COLORS[getSide(point)];
+	}
+
+	@Override
+	public int getRGB(Vector3 point) {
+		return RGB[getSide(point)];
+	}
+
+	/**
+	 * Calculates, which face of the {@code Cube} the {@code Vector3} point is on
+	 * 
+	 * @param point {@code Vector3} point on the {@code Cube}
+	 * @return {@code int} face in the order x+, x-, y+, y-, z+, z-
+	 */
+	public int getSide(Vector3 point) {
 		int side = -1;
-		double[] pointArray = point.toArray();
-		double[] anchorArray = shape.getAnchor().toArray();
+		Vector3 anchor = shape.getAnchor();
 
 		double maxDistance = 0;
 		int maxAxis = -1;
 		for (int i = 0; i < 3; i++) {
-			double distance = Math.abs(pointArray[i] - anchorArray[i]);
+			double distance = Math.abs(point.get(i) - anchor.get(i));
 			if (distance > maxDistance) {
 				maxDistance = distance;
 				maxAxis = i;
@@ -28,22 +48,14 @@ public class CubeMaterial extends Material {
 		}
 
 		if (maxAxis == 0) {
-			side = pointArray[0] > anchorArray[0] ? 0 : 1;
+			side = point.x > anchor.x ? 0 : 1;
 		}
 		else if (maxAxis == 1) {
-			side = pointArray[1] > anchorArray[1] ? 2 : 3;
+			side = point.y > anchor.y ? 2 : 3;
 		}
 		else {
-			side = pointArray[2] > anchorArray[2] ? 4 : 5;
+			side = point.z > anchor.z ? 4 : 5;
 		}
-
-		Color[] colors = {
-				// x+, x-, y+, y-, z+, z-
-				Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW, Color.PINK, Color.MAGENTA
-		};
-
-		if (side >= 0 && side < colors.length)
-			return colors[side];
-		return null;
+		return side;
 	}
 }
\ No newline at end of file
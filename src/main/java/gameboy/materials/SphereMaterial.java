@@ -7,6 +7,11 @@ import gameboy.utilities.math.Vector3;
 
 public class SphereMaterial extends Material {
 
+	private static final Color[] COLORS = {
+			Color.GREEN, Color.BLUE, Color.RED, Color.YELLOW, Color.CYAN, Color.MAGENTA, Color.LIGHT_GRAY, Color.PINK
+	};
+	private static final int[] RGB = Color.toRGB(COLORS);
+
 	public SphereMaterial() {
 		super(Color.WHITE);
 	}
@@ -29,10 +34,11 @@ public class SphereMaterial extends Material {
 
 	@Override
 	public Color getColor(Vector3 point) {
-		Color[] colors = {
-				Color.GREEN, Color.BLUE, Color.RED, Color.YELLOW, Color.CYAN, Color.MAGENTA, Color.LIGHT_GRAY,
-				Color.PINK
-		};
-		return colors[getSide(point)];
+		return COLORS[getSide(point)];
+	}
+
+	@Override
+	public int getRGB(Vector3 point) {
+		return RGB[getSide(point)];
 	}
 }
\ No newline at end of file
@@ -61,6 +61,16 @@ public class Camera {
         this.position = this.position.add(vec);
     }
 
+    /**
+     * Creates a {@code Camera} at the same position, looking the same way, used
+     * for snapshots of a {@code Scene}
+     * 
+     * @return {@code Camera} copy
+     */
+    public Camera copy() {
+        return new Camera(position, fov, pitch, yaw);
+    }
+
     @Override
     public String toString() {
         return getClass().getName().replace("gameboy.utilities.", "") + "@" + Integer.toHexString(hashCode());
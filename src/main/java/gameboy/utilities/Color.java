@@ -79,6 +79,60 @@ public class Color {
 		return new java.awt.Color(red, green, blue);
 	}
 
+	/**
+	 * Packs this {@code Color} into an {@code int} in the layout of
+	 * {@code BufferedImage.TYPE_INT_RGB}
+	 * 
+	 * @return {@code int} packed 0xRRGGBB value
+	 */
+	public int toRGB() {
+		return (red << 16) | (green << 8) | blue;
+	}
+
+	/**
+	 * Packs every {@code Color} of colors, see {@link #toRGB()}
+	 * 
+	 * @param colors {@code Color[]} to be packed
+	 * @return {@code int[]} packed 0xRRGGBB values in the same order
+	 */
+	public static int[] toRGB(Color[] colors) {
+		int[] rgb = new int[colors.length];
+		for (int i = 0; i < colors.length; i++) {
+			rgb[i] = colors[i].toRGB();
+		}
+		return rgb;
+	}
+
+	/**
+	 * Gets {@code int} red channel of a color packed by {@link #toRGB()}
+	 * 
+	 * @param rgb {@code int} packed 0xRRGGBB value
+	 * @return {@code int} red from 0 to 255
+	 */
+	public static int red(int rgb) {
+		return (rgb >> 16) & 0xFF;
+	}
+
+	/**
+	 * Gets {@code int} green channel of a color packed by {@link #toRGB()}
+	 * 
+	 * @param rgb {@code int} packed 0xRRGGBB value
+	 * @return {@code int} green from 0 to 255
+	 */
+	public static int green(int rgb) {
+		return (rgb >> 8) & 0xFF;
+	}
+
+	/**
+	 * Gets {@code int} blue channel of a color packed by {@link #toRGB()}
+	 * 
+	 * @param rgb {@code int} packed 0xRRGGBB value
+	 * @return {@code int} blue from 0 to 255
+	 */
+	public static int blue(int rgb) {
+		return rgb & 0xFF;
+	}
+
 	public Color add(double brightness) {
 		return new Color(Math.min(1, red + brightness), Math.min(1, green + brightness),
 				Math.min(1, blue + brightness));
@@ -1,10 +1,41 @@
 package gameboy.utilities;
 
+import java.util.Locale;
+
+import gameboy.utilities.data.Tonemap;
+
 public class GlobalSettings {
 	public static final double AMBIENT_BRIGHTNESS = .01;
 	public static final Color SKY_BOX_COLOR = new Color(10, 5, 10);
 	public static final int MAX_REFLECTION_DEPTH = 100;
+	public static final double MIN_REFLECTION_CONTRIBUTION = 1d / 256;
+	public static final boolean RUSSIAN_ROULETTE = Boolean.getBoolean("gameboy.russianRoulette");
 	public static final int MAX_RENDER_DISTANCE = 10000;
 	public static final double SKY_EMISSION = 0;
 	public static final double SPECULAR_STRENGTH = 1;
+	public static final int RENDER_THREADS = Integer.getInteger("gameboy.renderThreads",
+			Runtime.getRuntime().availableProcessors());
+	public static final int TILE_SIZE = 32;
+	public static final int TARGET_FRAME_RATE = Integer.getInteger("gameboy.targetFrameRate", 60);
+	public static final int FRAME_BUFFERS = 3;
+	public static final boolean DYNAMIC_RESOLUTION = Boolean
+			.parseBoolean(System.getProperty("gameboy.dynamicResolution", "true"));
+	public static final double MIN_RENDER_SCALE = 0.25;
+	public static final int STRIP_HEIGHT = 64;
+	public static final boolean PACKET_TRACING = Boolean.getBoolean("gameboy.packetTracing");
+	public static final int PACKET_SIZE = Integer.getInteger("gameboy.packetSize", 16);
+	public static final Tonemap TONEMAP = Tonemap
+			.valueOf(System.getProperty("gameboy.tonemap", "clamp").toUpperCase(Locale.ROOT));
+	public static final double EXPOSURE = Double.parseDouble(System.getProperty("gameboy.exposure", "1"));
+	public static final boolean SHADOW_MAPS = Boolean.getBoolean("gameboy.shadowMaps");
+	public static final int SHADOW_MAP_SIZE = Integer.getInteger("gameboy.shadowMapSize", 256);
+	public static final boolean TEMPORAL_REPROJECTION = Boolean.getBoolean("gameboy.temporalReprojection");
+	public static final int TEMPORAL_MAX_AGE = Integer.getInteger("gameboy.temporalMaxAge", 8);
+	public static final boolean DEFERRED_SHADING = Boolean
+			.parseBoolean(System.getProperty("gameboy.deferredShading", "true"));
+	public static final boolean SPECIALIZED_SHADING = Boolean.getBoolean("gameboy.specializedShading");
+	public static final Projection PROJECTION = Projection
+			.valueOf(System.getProperty("gameboy.projection", "aspect_fit").toUpperCase(Locale.ROOT));
+	public static final double ORTHOGRAPHIC_DISTANCE = Double
+			.parseDouble(System.getProperty("gameboy.orthographicDistance", "10"));
 }
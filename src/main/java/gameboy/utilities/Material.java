@@ -1,13 +1,22 @@
 package gameboy.utilities;
 
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
-import gameboy.lights.Light;
+import gameboy.lights.Lighting;
+import gameboy.lights.ShadowMaps;
+import gameboy.utilities.data.BVH;
 import gameboy.utilities.math.Ray;
 import gameboy.utilities.math.RayHit;
 import gameboy.utilities.math.Vector3;
 
-public abstract class Material {
+public abstract class Material implements Cloneable {
+
+    private static final double ROULETTE_THRESHOLD = 0.1;
+    private static final ThreadLocal<double[]> LIGHT = ThreadLocal.withInitial(() -> new double[4]);
+    /** Unit normal and view direction handed to {@code Lighting} */
+    private static final ThreadLocal<Vector3[]> DIRECTIONS = ThreadLocal
+            .withInitial(() -> new Vector3[] { new Vector3(0, 0, 0), new Vector3(0, 0, 0) });
 
     protected Color color;
     protected Shape shape;
@@ -28,10 +37,37 @@ public abstract class Material {
         return this.color;
     }
 
+    /**
+     * Gets the color at {@code Vector3} point packed like {@link Color#toRGB()}.
+     * Shading reads colors through this method, so materials with several colors
+     * override it to pick from a packed palette without touching {@code Color}
+     * objects
+     * 
+     * @param point {@code Vector3} on the {@code Shape} of this {@code Material}
+     * @return {@code int} packed 0xRRGGBB value
+     */
+    public int getRGB(Vector3 point) {
+        return getColor(point).toRGB();
+    }
+
     public void setColor(Color color) {
         this.color = color;
     }
 
+    /**
+     * Creates a copy of this {@code Material} that still belongs to the same
+     * {@code Shape3D}, see {@link Shape#copy()}
+     * 
+     * @return {@code Material} copy
+     */
+    public Material copy() {
+        try {
+            return (Material) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
     public void setShape(Shape shape) {
         this.shape = shape;
     }
@@ -68,77 +104,155 @@ public abstract class Material {
         return shininess;
     }
 
-    public Color shade(RayHit rayHit, List<Light> lights, List<Shape> objects) {
-        Color baseColor = rayHit.getShape().getMaterial().getColor(rayHit.getHitPoint());
-
-        Color ambientComponent = baseColor.multiply(GlobalSettings.AMBIENT_BRIGHTNESS);
-
-        Color diffuseComponent = new Color(0, 0, 0);
-        Color specularComponent = new Color(0, 0, 0);
+    /**
+     * Gets the {@code Color} seen along the {@code Ray} of rayHit, see
+     * {@link #shade(RayHit, Scene, double[])}
+     * 
+     * @param rayHit {@code RayHit} to be shaded
+     * @param scene  {@code Scene} of rayHit
+     * @return shaded {@code Color}, clamped to full intensity
+     */
+    public Color shade(RayHit rayHit, Scene scene) {
+        double[] radiance = new double[3];
+        shade(rayHit, scene, radiance);
+        return new Color(quantize(radiance[0]), quantize(radiance[1]), quantize(radiance[2]));
+    }
 
-        for (Light light : lights) {
-            if (!isInShadow(rayHit, light, objects)) {
-                diffuseComponent = diffuseComponent.add(baseColor.multiply(calculateDiffuseLighting(rayHit, light)));
-                specularComponent = specularComponent
-                        .add(light.getColor().multiply(calculateSpecularLighting(rayHit, light)));
-            }
-        }
+    private static int quantize(double channel) {
+        return (int) Math.min(255, Math.max(0, channel * 255));
+    }
 
-        Color reflectionComponent = calculateReflection(rayHit, lights, objects);
+    /**
+     * Calculates the light seen along the {@code Ray} of rayHit into
+     * {@code double[]} radiance, as linear red, green and blue where 1 is full
+     * intensity. Nothing is clamped, so bright highlights and their reflections
+     * keep their energy until the image is tonemapped. Reflections are followed
+     * iteratively, each bounce weighted by the product of the reflectivities
+     * before it. Tracing stops after {@code GlobalSettings.MAX_REFLECTION_DEPTH}
+     * bounces or once that weight falls below
+     * {@code GlobalSettings.MIN_REFLECTION_CONTRIBUTION}, in which case the rest of
+     * the path is taken to see the sky. With {@code GlobalSettings.RUSSIAN_ROULETTE}
+     * faint paths are instead continued at random with a raised weight
+     * 
+     * @param rayHit   {@code RayHit} to be shaded
+     * @param scene    {@code Scene} of rayHit
+     * @param radiance {@code double[]} of at least 3 elements that is overwritten
+     *                 with the result
+     */
+    public void shade(RayHit rayHit, Scene scene, double[] radiance) {
+        shade(rayHit, scene, (ShadowMaps) null, radiance);
+    }
 
-        Color finalColor = ambientComponent.add(diffuseComponent).add(specularComponent).add(reflectionComponent);
-        return finalColor;
+    /**
+     * Same as {@link #shade(RayHit, Scene, double[])}, but looks shadows up in
+     * {@code ShadowMaps} shadows instead of tracing shadow rays where a map of the
+     * light exists
+     * 
+     * @param rayHit   {@code RayHit} to be shaded
+     * @param scene    {@code Scene} of rayHit
+     * @param shadows  {@code ShadowMaps} of scene, {@code null} traces all shadows
+     * @param radiance {@code double[]} of at least 3 elements that is overwritten
+     *                 with the result
+     */
+    public void shade(RayHit rayHit, Scene scene, ShadowMaps shadows, double[] radiance) {
+        shade(rayHit, scene, Lighting.of(scene.getLights(), shadows), radiance);
     }
 
-    private boolean isInShadow(RayHit rayHit, Light light, List<Shape> objects) {
-        Vector3 hitPoint = rayHit.getHitPoint();
-        Vector3 lightDirection = light.getAnchor().subtract(hitPoint).normalize();
-        Ray shadowRay = new Ray(hitPoint.add(lightDirection.scale(1e-4)), lightDirection);
+    /**
+     * Same as {@link #shade(RayHit, Scene, double[])}, but gets the light of the
+     * {@code Scene}'s lights through {@code Lighting} lighting, which may be
+     * compiled for them, see {@link Lighting#compile(List, ShadowMaps)}
+     * 
+     * @param rayHit   {@code RayHit} to be shaded
+     * @param scene    {@code Scene} of rayHit
+     * @param lighting {@code Lighting} of the lights of scene
+     * @param radiance {@code double[]} of at least 3 elements that is overwritten
+     *                 with the result
+     */
+    public void shade(RayHit rayHit, Scene scene, Lighting lighting, double[] radiance) {
+        // Secondary rays of a pixel all skip the surface first hit by its primary ray
+        Shape ignore = rayHit.getRay().getIgnore() != null ? rayHit.getRay().getIgnore() : rayHit.getShape();
+        BVH objects = scene.getBVH();
+        int sky = GlobalSettings.SKY_BOX_COLOR.toRGB();
+
+        radiance[0] = 0;
+        radiance[1] = 0;
+        radiance[2] = 0;
+        double throughput = 1;
+        RayHit hit = rayHit;
+        for (int depth = 1;; depth++) {
+            Material material = hit.getShape().getMaterial();
+            Vector3 hitPoint = hit.getHitPoint();
+            material.addLocalLighting(hit, hitPoint, lighting, objects, ignore, throughput, radiance);
+
+            double reflectivity = material.getReflectivity();
+            RayHit reflectedHit = reflectivity > 0 ? material.castReflection(hit, hitPoint, objects, ignore) : null;
+            if (reflectedHit == null) {
+                add(radiance, sky, throughput);
+                break;
+            }
 
-        RayHit hit = shadowRay.cast(objects);
+            add(radiance, material.getRGB(hitPoint), throughput * (1 - reflectivity));
+            throughput *= reflectivity;
 
-        if (hit != null)
-            return true;
-        return false;
+            if (GlobalSettings.RUSSIAN_ROULETTE && throughput < ROULETTE_THRESHOLD
+                    && depth < GlobalSettings.MAX_REFLECTION_DEPTH) {
+                double survival = throughput / ROULETTE_THRESHOLD;
+                if (ThreadLocalRandom.current().nextDouble() >= survival)
+                    break;
+                throughput = ROULETTE_THRESHOLD;
+            }
+            else if (throughput < GlobalSettings.MIN_REFLECTION_CONTRIBUTION
+                    || depth >= GlobalSettings.MAX_REFLECTION_DEPTH) {
+                add(radiance, sky, throughput);
+                break;
+            }
+            hit = reflectedHit;
+        }
     }
 
-    private double calculateDiffuseLighting(RayHit rayHit, Light light) {
-        Vector3 normal = rayHit.getShape().getNormal(rayHit.getHitPoint()).normalize();
-        Vector3 lightDirection = light.getAnchor().subtract(rayHit.getHitPoint()).normalize();
-        return Math.max(0, normal.dot(lightDirection));
+    private static void add(double[] radiance, int rgb, double weight) {
+        double scale = weight / 255;
+        radiance[0] += Color.red(rgb) * scale;
+        radiance[1] += Color.green(rgb) * scale;
+        radiance[2] += Color.blue(rgb) * scale;
     }
 
-    private double calculateSpecularLighting(RayHit rayHit, Light light) {
-        Vector3 viewDirection = rayHit.getRay().getDirection().normalize();
-        Vector3 lightDirection = light.getAnchor().subtract(rayHit.getHitPoint()).normalize();
-        Vector3 normal = rayHit.getShape().getNormal(rayHit.getHitPoint()).normalize();
-        Vector3 reflectDirection = lightDirection.subtract(normal.scale(2 * lightDirection.dot(normal))).normalize();
-
-        double specularStrength = GlobalSettings.SPECULAR_STRENGTH;
-        double shininess = getShininess();
-        double specularFactor = Math.pow(Math.max(0, viewDirection.dot(reflectDirection)), shininess);
-
-        return specularStrength * specularFactor;
+    /**
+     * Adds ambient, diffuse and specular light reflected at the hit point of
+     * rayHit, which has to lie on a {@code Shape} of this {@code Material},
+     * multiplied by weight to radiance
+     */
+    private void addLocalLighting(RayHit rayHit, Vector3 hitPoint, Lighting lighting, BVH objects, Shape ignore,
+            double weight, double[] radiance) {
+        Vector3[] directions = DIRECTIONS.get();
+        Vector3 normal = directions[0].set(rayHit.getNormal()).normalizeLocal();
+        Vector3 viewDirection = directions[1].set(rayHit.getRay().getDirection()).normalizeLocal();
+        double[] light = LIGHT.get();
+        light[0] = GlobalSettings.AMBIENT_BRIGHTNESS;
+        light[1] = 0;
+        light[2] = 0;
+        light[3] = 0;
+        lighting.illuminate(hitPoint, normal, viewDirection, getShininess(), objects, ignore, light);
+
+        int baseColor = getRGB(hitPoint);
+        double scale = weight / 255;
+        radiance[0] += (Color.red(baseColor) * light[0] + light[1]) * scale;
+        radiance[1] += (Color.green(baseColor) * light[0] + light[2]) * scale;
+        radiance[2] += (Color.blue(baseColor) * light[0] + light[3]) * scale;
     }
 
-    private Color calculateReflection(RayHit rayHit, List<Light> lights, List<Shape> objects) {
-        if (reflectivity <= 0) {
-            return GlobalSettings.SKY_BOX_COLOR;
-        }
-
-        Vector3 hitPoint = rayHit.getHitPoint();
+    private RayHit castReflection(RayHit rayHit, Vector3 hitPoint, BVH objects, Shape ignore) {
         Vector3 normal = getNormal(hitPoint);
         Vector3 incident = rayHit.getRay().getDirection();
-        Vector3 reflectedDirection = incident.subtract(normal.scale(2 * incident.dot(normal))).normalize();
-        Ray reflectedRay = new Ray(hitPoint.add(reflectedDirection.scale(1e-4)), reflectedDirection);
-
-        RayHit reflectedHit = reflectedRay.cast(objects);
-        if (reflectedHit != null) {
-            Material reflectedMaterial = reflectedHit.getShape().getMaterial();
-            Color reflectedColor = reflectedMaterial.shade(reflectedHit, lights, objects);
-            return getColor(hitPoint).interpolate(reflectedColor, reflectivity);
-        }
-
-        return GlobalSettings.SKY_BOX_COLOR;
+        double incidentDotNormal = 2 * incident.dot(normal);
+        Vector3 reflectedDirection = new Vector3(incident.x - normal.x * incidentDotNormal,
+                incident.y - normal.y * incidentDotNormal, incident.z - normal.z * incidentDotNormal)
+                .normalizeLocal();
+        Ray reflectedRay = new Ray(new Vector3(hitPoint.x + reflectedDirection.x * 1e-4,
+                hitPoint.y + reflectedDirection.y * 1e-4, hitPoint.z + reflectedDirection.z * 1e-4),
+                reflectedDirection, ignore);
+
+        return reflectedRay.cast(objects);
     }
 }
@@ -0,0 +1,126 @@
+package gameboy.utilities;
+
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Models mapping the pixels of an image to the primary rays of a
+ * {@code Camera}. Every model is affine in the pixel coordinates, so it is
+ * described by the ray of pixel (0, 0) and the change of its origin and
+ * direction per pixel in x and y, which {@code CameraRays} steps through
+ * instead of projecting every pixel on its own
+ */
+public enum Projection {
+
+    /**
+     * Fits a square of the field of view into the shorter side of the image,
+     * with the eye behind the camera position along z whichever way the camera
+     * is turned. The projection the renderer always used
+     */
+    ASPECT_FIT {
+        @Override
+        public void frame(Camera camera, double width, double height, double[] frame) {
+            double focalLength = 1 / Math.tan(camera.getFOV() / 2);
+            double u0, du, v0, dv;
+            if (width > height) {
+                u0 = -width / height;
+                du = 2 / height;
+                v0 = 1;
+                dv = -2 / height;
+            }
+            else {
+                u0 = -1;
+                du = 2 / width;
+                v0 = height / width;
+                dv = -2 / width;
+            }
+            Vector3 position = camera.getPosition();
+            set(frame, ORIGIN, position.x, position.y, position.z - focalLength);
+            perspective(camera, u0, du, v0, dv, focalLength, frame);
+        }
+    },
+    /**
+     * Pinhole camera at the camera position, the field of view spans the height
+     * of the image and rays pass through pixel centres
+     */
+    PERSPECTIVE {
+        @Override
+        public void frame(Camera camera, double width, double height, double[] frame) {
+            double scale = Math.tan(camera.getFOV() / 2);
+            double aspect = width / height;
+            Vector3 position = camera.getPosition();
+            set(frame, ORIGIN, position.x, position.y, position.z);
+            perspective(camera, (1 / width - 1) * scale * aspect, 2 * scale * aspect / width,
+                    (1 - 1 / height) * scale, -2 * scale / height, 1, frame);
+        }
+    },
+    /**
+     * Parallel rays along the view direction, covering the area the
+     * {@code PERSPECTIVE} projection sees at
+     * {@code GlobalSettings.ORTHOGRAPHIC_DISTANCE}, so the field of view zooms
+     */
+    ORTHOGRAPHIC {
+        @Override
+        public void frame(Camera camera, double width, double height, double[] frame) {
+            double scale = Math.tan(camera.getFOV() / 2) * GlobalSettings.ORTHOGRAPHIC_DISTANCE;
+            double aspect = width / height;
+            double u0 = (1 / width - 1) * scale * aspect, du = 2 * scale * aspect / width;
+            double v0 = (1 - 1 / height) * scale, dv = -2 * scale / height;
+            Vector3 right = new Vector3(1, 0, 0).rotate(camera.getPitch(), camera.getYaw());
+            Vector3 up = new Vector3(0, 1, 0).rotate(camera.getPitch(), camera.getYaw());
+            Vector3 forward = new Vector3(0, 0, 1).rotate(camera.getPitch(), camera.getYaw());
+            Vector3 position = camera.getPosition();
+
+            set(frame, ORIGIN, position.x + right.x * u0 + up.x * v0, position.y + right.y * u0 + up.y * v0,
+                    position.z + right.z * u0 + up.z * v0);
+            set(frame, ORIGIN_X, right.x * du, right.y * du, right.z * du);
+            set(frame, ORIGIN_Y, up.x * dv, up.y * dv, up.z * dv);
+            set(frame, DIRECTION, forward.x, forward.y, forward.z);
+            set(frame, DIRECTION_X, 0, 0, 0);
+            set(frame, DIRECTION_Y, 0, 0, 0);
+        }
+    };
+
+    /** Offsets of the vectors written by {@link #frame(Camera, double, double, double[])} */
+    public static final int ORIGIN = 0, ORIGIN_X = 3, ORIGIN_Y = 6, DIRECTION = 9, DIRECTION_X = 12,
+            DIRECTION_Y = 15, FRAME_LENGTH = 18;
+
+    /**
+     * Writes the primary ray of pixel (0, 0) of a width x height image seen by
+     * {@code Camera} camera to {@code double[]} frame, followed by the change of
+     * its origin and direction per pixel in x and y, see {@link #ORIGIN} to
+     * {@link #DIRECTION_Y}. Directions are not normalized
+     *
+     * @param camera {@code Camera} to be projected
+     * @param width  {@code double} width of the image in pixels
+     * @param height {@code double} height of the image in pixels
+     * @param frame  {@code double[]} of at least {@link #FRAME_LENGTH} elements
+     */
+    public abstract void frame(Camera camera, double width, double height, double[] frame);
+
+    /**
+     * Writes the directions of rays from a fixed origin through the screen point
+     * (u, v, focalLength) in camera space, with u and v affine in the pixel
+     * coordinates. Rotation is linear, so the camera basis is rotated once and
+     * the pixel steps are multiples of its axes
+     */
+    private static void perspective(Camera camera, double u0, double du, double v0, double dv, double focalLength,
+            double[] frame) {
+        Vector3 right = new Vector3(1, 0, 0).rotate(camera.getPitch(), camera.getYaw());
+        Vector3 up = new Vector3(0, 1, 0).rotate(camera.getPitch(), camera.getYaw());
+        Vector3 forward = new Vector3(0, 0, 1).rotate(camera.getPitch(), camera.getYaw());
+
+        set(frame, ORIGIN_X, 0, 0, 0);
+        set(frame, ORIGIN_Y, 0, 0, 0);
+        set(frame, DIRECTION, right.x * u0 + up.x * v0 + forward.x * focalLength,
+                right.y * u0 + up.y * v0 + forward.y * focalLength,
+                right.z * u0 + up.z * v0 + forward.z * focalLength);
+        set(frame, DIRECTION_X, right.x * du, right.y * du, right.z * du);
+        set(frame, DIRECTION_Y, up.x * dv, up.y * dv, up.z * dv);
+    }
+
+    private static void set(double[] frame, int offset, double x, double y, double z) {
+        frame[offset] = x;
+        frame[offset + 1] = y;
+        frame[offset + 2] = z;
+    }
+}
@@ -1,46 +1,382 @@
 package gameboy.utilities;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import gameboy.lights.Light;
+import gameboy.utilities.data.BVH;
+import gameboy.utilities.data.PersistentArray;
 
+/**
+ * Cameras, shapes and lights to be rendered. A {@code Scene} that is rendered
+ * while it is edited should only be edited through {@link #submit(Runnable)},
+ * and rendered through {@link #snapshot()}: the render loop applies the queued
+ * edits between frames with {@link #applyEdits()} and then takes an immutable
+ * snapshot that the render threads read without locks. A snapshot copies only
+ * the shapes, lights and cameras that changed since the last one and shares
+ * all others with it, including its {@code BVH}, which is refit on a copy
+ * around the edited shapes. Its shapes are kept in a {@link PersistentArray},
+ * so a snapshot after k shapes were edited takes O(k log n).
+ */
 public class Scene {
     private int currentCamera = 0;
     private List<Camera> cameras = new LinkedList<>();
     private List<Shape> shapes = new LinkedList<>();
     private List<Light> lights = new LinkedList<>();
+    private volatile BVH bvh;
+    private volatile int version;
+    private final ShapeListener listener = this::shapeChanged;
+    private final boolean frozen;
+
+    private final Queue<Runnable> edits = new ConcurrentLinkedQueue<>();
+    /** Shapes moved or resized since the last snapshot */
+    private final Set<Shape> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** Shapes, lights and cameras edited otherwise since the last snapshot */
+    private final Set<Object> edited = Collections.newSetFromMap(new IdentityHashMap<>());
+    /** Copies of lights and cameras of the last snapshot by their original */
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+    /** Index of each shape in {@link #shapes}, as of the last full snapshot */
+    private final Map<Shape, Integer> indices = new IdentityHashMap<>();
+    /** Whether a shape is listed twice, then every snapshot copies all shapes */
+    private boolean duplicates;
+    /** Shapes of a snapshot, {@link #shapes} is a view of them */
+    private PersistentArray<Shape> shapeCopies;
+    private boolean restructured = true;
+    private boolean editedAll;
+    private Scene snapshot;
 
     public Scene(Camera camera, List<Shape> children) {
+        frozen = false;
         cameras.add(camera);
         this.shapes = children;
+        listenTo(children);
     }
 
     public Scene(Camera camera, List<Shape> children, List<Light> lights) {
+        frozen = false;
         cameras.add(camera);
         this.shapes = children;
         this.lights = lights;
+        listenTo(children);
     }
 
     public Scene(List<Camera> cameras, List<Shape> children, List<Light> lights) {
+        frozen = false;
         this.cameras = cameras;
         this.shapes = children;
         this.lights = lights;
+        listenTo(children);
     }
 
     public Scene(Camera camera) {
+        frozen = false;
         cameras.add(camera);
     }
 
+    /**
+     * Creates a snapshot, see {@link #snapshot()}
+     */
+    private Scene(List<Camera> cameras, List<Shape> shapes, List<Light> lights, int currentCamera, BVH bvh,
+            int version) {
+        frozen = true;
+        this.cameras = cameras;
+        this.shapes = shapes;
+        this.lights = lights;
+        this.currentCamera = currentCamera;
+        this.bvh = bvh;
+        this.version = version;
+    }
+
     public List<Shape> getShapes() {
         return shapes;
     }
 
+    public void addShape(Shape shape) {
+        checkEditable();
+        shapes.add(shape);
+        shape.addListener(listener);
+        invalidate();
+    }
+
+    private void checkEditable() {
+        if (frozen)
+            throw new UnsupportedOperationException("Snapshots of a Scene cannot be edited");
+    }
+
+    private void listenTo(List<Shape> shapes) {
+        for (Shape shape : shapes) {
+            shape.addListener(listener);
+        }
+    }
+
+    /**
+     * Refits the {@code BVH} around a moved or resized {@code Shape} instead of
+     * rebuilding it. The refit is done on a copy that replaces the hierarchy
+     * atomically, so threads still casting rays through the old one are not
+     * affected. Once there were as many refits as shapes the hierarchy is
+     * rebuilt, which keeps its quality at an amortized O(log n) per edit
+     */
+    private synchronized void shapeChanged(Shape shape) {
+        BVH current = bvh;
+        if (current != null)
+            bvh = current.getRefitCount() >= shapes.size() ? null : current.refit(shape);
+        moved.add(shape);
+        version++;
+    }
+
+    /**
+     * Gets the {@code BVH} over all {@code Shape}s of this {@code Scene}, building
+     * it if the {@code Scene} was changed since the last call
+     * 
+     * @return current {@code BVH}
+     */
+    public BVH getBVH() {
+        BVH current = bvh;
+        if (current == null) {
+            current = new BVH(shapes);
+            bvh = current;
+        }
+        return current;
+    }
+
+    /**
+     * Marks the acceleration structure as outdated, has to be called after a
+     * {@code Shape} was added or removed. Shapes that are moved or resized
+     * through their setters notify this {@code Scene} themselves
+     */
+    public synchronized void invalidate() {
+        checkEditable();
+        bvh = null;
+        restructured = true;
+        version++;
+    }
+
+    /**
+     * Marks this {@code Scene} as changed without touching the geometry, has to be
+     * called after a {@code Light} or {@code Material} was edited. The next
+     * snapshot copies every shape and light, {@link #markChanged(Object)} only
+     * copies the edited one
+     */
+    public synchronized void markChanged() {
+        checkEditable();
+        editedAll = true;
+        version++;
+    }
+
+    /**
+     * Marks {@code Shape3D}, {@code Light} or {@code Camera} item as changed, has
+     * to be called after its {@code Material}, color or anything else that does
+     * not notify this {@code Scene} was edited
+     * 
+     * @param item {@code Object} edited part of this {@code Scene}
+     */
+    public synchronized void markChanged(Object item) {
+        checkEditable();
+        edited.add(item);
+        version++;
+    }
+
+    /**
+     * Queues {@code Runnable} edit to be applied by the next call of
+     * {@link #applyEdits()}, may be called from any thread
+     * 
+     * @param edit {@code Runnable} changing this {@code Scene}
+     */
+    public void submit(Runnable edit) {
+        checkEditable();
+        edits.add(edit);
+    }
+
+    /**
+     * Applies all edits queued by {@link #submit(Runnable)} on the calling
+     * thread, in the order they were submitted. The render loop calls it between
+     * frames, right before taking a {@link #snapshot()}. An edit that throws is
+     * reported and skipped, the edits queued after it are still applied
+     * 
+     * @return {@code true} if any edit was applied
+     */
+    public boolean applyEdits() {
+        boolean applied = false;
+        for (Runnable edit; (edit = edits.poll()) != null;) {
+            try {
+                edit.run();
+                applied = true;
+            } catch (RuntimeException e) {
+                System.err.println("Scene edit failed: " + e);
+                e.printStackTrace();
+            }
+        }
+        return applied;
+    }
+
+    /**
+     * Gets an immutable copy of this {@code Scene} as it is now, whose shapes,
+     * lights and cameras are copies that are never changed, with its
+     * {@code BVH} already built. Only what changed since the last snapshot is
+     * copied, everything else is shared with it, so the same snapshot is
+     * returned as long as nothing changed. Has to be called on the thread that
+     * edits this {@code Scene}
+     * 
+     * @return {@code Scene} snapshot, this {@code Scene} if it is a snapshot
+     */
+    public synchronized Scene snapshot() {
+        if (frozen)
+            return this;
+        Scene last = snapshot;
+        boolean full = last == null || restructured || duplicates || last.shapes.size() != shapes.size()
+                || last.lights.size() != lights.size() || last.cameras.size() != cameras.size();
+        if (full)
+            copies.clear();
+
+        // Cameras and lights are few and change without notifying, so they are
+        // compared with their copies every time
+        List<Camera> cameraCopies = new ArrayList<>(cameras.size());
+        boolean camerasChanged = full;
+        for (Camera camera : cameras) {
+            Camera copy = (Camera) copies.get(camera);
+            if (copy == null || edited.contains(camera) || !sameView(camera, copy)) {
+                copy = camera.copy();
+                copies.put(camera, copy);
+                camerasChanged = true;
+            }
+            cameraCopies.add(copy);
+        }
+        List<Light> lightCopies = new ArrayList<>(lights.size());
+        boolean lightsChanged = full;
+        for (Light light : lights) {
+            Light copy = (Light) copies.get(light);
+            boolean changed = copy != null && !sameLight(light, copy);
+            // Lights do not notify, so what caches the lighting by version has
+            // to learn it here
+            if (changed)
+                version++;
+            if (copy == null || editedAll || edited.contains(light) || changed) {
+                copy = light.copy();
+                copies.put(light, copy);
+                lightsChanged = true;
+            }
+            lightCopies.add(copy);
+        }
+        // Lists shared with the last snapshot are unmodifiable already
+        cameraCopies = camerasChanged ? Collections.unmodifiableList(cameraCopies) : last.cameras;
+        lightCopies = lightsChanged ? Collections.unmodifiableList(lightCopies) : last.lights;
+
+        // Only the edited shapes are visited and copied, on the paths of the
+        // array that lead to them
+        PersistentArray<Shape> shapeArray = full ? null : last.shapeCopies;
+        Map<Shape, Shape> replacements = new IdentityHashMap<>();
+        if (full) {
+            indices.clear();
+            duplicates = false;
+            List<Shape> copied = new ArrayList<>(shapes.size());
+            for (Shape shape : shapes) {
+                duplicates |= indices.put(shape, copied.size()) != null;
+                copied.add(shape.copy());
+            }
+            shapeArray = PersistentArray.of(copied);
+        }
+        else if (editedAll) {
+            PersistentArray.Editor<Shape> editor = shapeArray.edit();
+            for (Shape shape : shapes) {
+                replace(shape, editor, replacements);
+            }
+            shapeArray = editor.done();
+        }
+        else if (!moved.isEmpty() || !edited.isEmpty()) {
+            PersistentArray.Editor<Shape> editor = shapeArray.edit();
+            for (Shape shape : moved) {
+                replace(shape, editor, replacements);
+            }
+            for (Object item : edited) {
+                if (item instanceof Shape && !moved.contains(item))
+                    replace((Shape) item, editor, replacements);
+            }
+            shapeArray = editor.done();
+        }
+        List<Shape> shapeList = !full && shapeArray == last.shapeCopies ? last.shapes : shapeArray.asList();
+
+        BVH objects = full ? null : last.bvh;
+        if (!replacements.isEmpty()) {
+            boolean geometryChanged = !moved.isEmpty();
+            // Rebuilt once there were as many refits as shapes, like the BVH of
+            // this Scene itself
+            objects = geometryChanged && objects.getRefitCount() + moved.size() > shapes.size() ? null
+                    : objects.replace(replacements, geometryChanged);
+        }
+
+        moved.clear();
+        edited.clear();
+        editedAll = false;
+        restructured = false;
+        if (!full && cameraCopies == last.cameras && lightCopies == last.lights && shapeList == last.shapes
+                && objects == last.bvh && last.version == version && last.currentCamera == currentCamera)
+            return last;
+
+        if (objects == null)
+            objects = new BVH(shapeList);
+        snapshot = new Scene(cameraCopies, shapeList, lightCopies, currentCamera, objects, version);
+        snapshot.shapeCopies = shapeArray;
+        return snapshot;
+    }
+
+    /**
+     * Copies {@code Shape} shape into the snapshot being taken, in place of its
+     * last copy
+     */
+    private void replace(Shape shape, PersistentArray.Editor<Shape> editor, Map<Shape, Shape> replacements) {
+        Integer index = indices.get(shape);
+        if (index == null)
+            return;
+        Shape replacement = shape.copy();
+        replacements.put(editor.get(index), replacement);
+        editor.set(index, replacement);
+    }
+
+    private static boolean sameView(Camera camera, Camera copy) {
+        return camera.getPosition().distanceSquared(copy.getPosition()) == 0 && camera.getPitch() == copy.getPitch()
+                && camera.getYaw() == copy.getYaw() && camera.getFOV() == copy.getFOV();
+    }
+
+    private static boolean sameLight(Light light, Light copy) {
+        return light.getAnchor().distanceSquared(copy.getAnchor()) == 0
+                && light.getColor().toRGB() == copy.getColor().toRGB();
+    }
+
+    /**
+     * Gets {@code int} version of this {@code Scene}, which changes whenever it is
+     * edited, so that cached images of it can be recognised as outdated
+     * 
+     * @return {@code int} version
+     */
+    public int getVersion() {
+        return version;
+    }
+
     public Camera getCurrentCamera() {
         return cameras.get(currentCamera);
     }
 
+    /**
+     * Sets the {@code Camera} that is rendered from
+     * 
+     * @param index {@code int} index in {@link #getCameras()}
+     */
+    public void setCurrentCamera(int index) {
+        checkEditable();
+        if (index < 0 || index >= cameras.size())
+            throw new IndexOutOfBoundsException("Camera " + index + " of " + cameras.size());
+        currentCamera = index;
+    }
+
     public void nextCamera() {
+        checkEditable();
         currentCamera++;
     }
 
@@ -1,14 +1,23 @@
 package gameboy.utilities;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import gameboy.utilities.math.BoundingBox;
+import gameboy.utilities.math.PacketKernel;
 import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayPacket;
 import gameboy.utilities.math.Vector3;
 
-public abstract class Shape {
+public abstract class Shape implements Cloneable {
+
+    public static final double NO_HIT = Double.POSITIVE_INFINITY;
 
     Vector3 anchor;
     Material material;
+    private List<ShapeListener> listeners = new CopyOnWriteArrayList<>();
+    /** Shape of the edited {@code Scene} this one is a snapshot copy of */
+    private Shape source = this;
 
     public Shape(Material material) {
         setMaterial(material);
@@ -28,6 +37,7 @@ public abstract class Shape {
      */
     public void setAnchor(Vector3 anchor) {
         this.anchor = anchor;
+        notifyChanged();
     }
 
     /**
@@ -39,6 +49,64 @@ public abstract class Shape {
         return anchor;
     }
 
+    /**
+     * Adds {@code ShapeListener} listener, which is notified whenever this
+     * {@code Shape3D} is moved or resized
+     * 
+     * @param listener {@code ShapeListener} to be added
+     */
+    public void addListener(ShapeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ShapeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notifies all {@code ShapeListener}s that the geometry of this
+     * {@code Shape3D} changed, has to be called by every setter that changes its
+     * intersections or bounds
+     */
+    protected void notifyChanged() {
+        for (ShapeListener listener : listeners) {
+            listener.shapeChanged(this);
+        }
+    }
+
+    /**
+     * Creates a copy of this {@code Shape3D} with a copy of its {@code Material}
+     * and without listeners, used for snapshots of a {@code Scene}. Fields of
+     * subclasses are copied as they are, so setters have to replace objects like
+     * {@code Vector3} anchors instead of changing them. The copy has the same
+     * {@link #getSource()}
+     * 
+     * @return {@code Shape3D} copy
+     */
+    public Shape copy() {
+        try {
+            Shape copy = (Shape) super.clone();
+            copy.listeners = new CopyOnWriteArrayList<>();
+            if (material != null) {
+                copy.material = material.copy();
+                copy.material.setShape(copy);
+            }
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Gets the {@code Shape3D} this one was copied from, following copies of
+     * copies, so every snapshot of a shape has the same source
+     * 
+     * @return {@code Shape3D} source, this {@code Shape3D} if it is not a copy
+     */
+    public Shape getSource() {
+        return source;
+    }
+
     /**
      * Returns {@code true} if {@code Material} property is not {@code null}
      * 
@@ -81,7 +149,40 @@ public abstract class Shape {
      * @return {@code null} if {@code Ray} does not intersect {@code Shape3D}, else
      *         {@code Vector3} intersection point with {@code Shape3D}
      */
-    public abstract Vector3 getIntersectionPoint(Ray ray);
+    public Vector3 getIntersectionPoint(Ray ray) {
+        double t = intersect(ray, 0, Double.POSITIVE_INFINITY);
+        return t == NO_HIT ? null : ray.getPoint(t);
+    }
+
+    /**
+     * Gets {@code double} distance t along {@code Ray} ray to the closest
+     * intersection of this {@code Shape3D} with t in [tMin, tMax], else returns
+     * {@code NO_HIT}
+     * 
+     * @param ray  {@code Ray} to be checked if intersecting with {@code Shape3D}
+     * @param tMin {@code double} smallest accepted distance
+     * @param tMax {@code double} largest accepted distance
+     * @return {@code double} distance t, {@code NO_HIT} if there is no
+     *         intersection within [tMin, tMax]
+     */
+    public abstract double intersect(Ray ray, double tMin, double tMax);
+
+    /**
+     * Intersects every ray of {@code RayPacket} packet with this {@code Shape3D},
+     * writing the distances {@link #intersect(Ray, double, double)} would return
+     * to {@link RayPacket#getCandidates()}. Shapes with a matching
+     * {@code PacketKernel} primitive hand the whole packet to kernel, others test
+     * one ray after the other
+     * 
+     * @param packet {@code RayPacket} to be checked
+     * @param kernel {@code PacketKernel} to be used
+     */
+    public void intersect(RayPacket packet, PacketKernel kernel) {
+        double[] candidates = packet.getCandidates();
+        for (int i = 0; i < packet.size(); i++) {
+            candidates[i] = intersect(packet.getRay(i), packet.getTMin(), packet.t[i]);
+        }
+    }
 
     /**
      * Calculates {@code Vector3} surface normal vector at {@code Vector3} hitPoint
@@ -91,6 +192,16 @@ public abstract class Shape {
      */
     public abstract Vector3 getNormal(Vector3 hitPoint);
 
+    /**
+     * Gets {@code BoundingBox} enclosing this {@code Shape3D}, or {@code null} if
+     * the {@code Shape3D} is unbounded
+     * 
+     * @return {@code BoundingBox} bounds, {@code null} if unbounded
+     */
+    public BoundingBox getBounds() {
+        return null;
+    }
+
     @Override
     public String toString() {
         return getClass().getName().replace("gameboy.geometries.", "") + "@" + Integer.toHexString(hashCode());
@@ -0,0 +1,16 @@
+package gameboy.utilities;
+
+/**
+ * Receives notifications when the geometry of a {@code Shape} is changed in
+ * place, e.g. its anchor or size, see {@link Shape#addListener(ShapeListener)}
+ */
+public interface ShapeListener {
+
+    /**
+     * Called after {@code Shape} shape was moved or resized, on the thread that
+     * changed it
+     * 
+     * @param shape changed {@code Shape}
+     */
+    public void shapeChanged(Shape shape);
+}
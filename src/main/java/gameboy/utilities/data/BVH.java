@@ -0,0 +1,736 @@
+package gameboy.utilities.data;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gameboy.utilities.Shape;
+import gameboy.utilities.math.BoundingBox;
+import gameboy.utilities.math.PacketKernel;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+import gameboy.utilities.math.RayPacket;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Bounding volume hierarchy over the bounded {@code Shape}s of a scene, built
+ * with a binned surface area heuristic. Nodes are stored depth first in flat
+ * arrays: the first child of an interior node directly follows it, the second
+ * child is at {@code offsets[node]}. Shapes without bounds (e.g. {@code Plane})
+ * are kept in a side group that is tested for every ray. The shapes themselves
+ * are flattened into one {@link ShapeArrays} per leaf, a leaf stores the index
+ * of its group.
+ * <p>
+ * The hierarchy is built over the bounds of whole shapes, which intersect
+ * themselves analytically. A {@code BVH} is never changed once it is built, so
+ * any number of threads can traverse it while it is edited: when a single shape
+ * is moved or resized, {@link #refit(Shape)} returns a copy that updates its
+ * leaf and grows or shrinks the bounds of the nodes above it through parent
+ * links, in O(depth) instead of a rebuild. Node bounds are kept in chunks of 32
+ * nodes and groups in a {@link PersistentArray}, so the copy shares all chunks
+ * and groups but those on the path from the leaf to the root. The topology is
+ * kept, so the hierarchy gets worse the further shapes move and should be
+ * rebuilt after many refits, see {@link #getRefitCount()}.
+ * {@link #replace(Map, boolean)} does the same for snapshots of a scene that
+ * swap shapes for edited copies.
+ */
+public class BVH {
+
+    private static final int BINS = 12;
+    private static final int MAX_LEAF_SIZE = 4;
+    private static final int MAX_DEPTH = 48;
+    private static final double TRAVERSAL_COST = 1;
+    private static final double PADDING = 1e-6;
+    /** Bits of a node index that select its bounds within a chunk */
+    private static final int CHUNK_BITS = 5;
+    private static final int CHUNK_MASK = (1 << CHUNK_BITS) - 1;
+
+    private static final ThreadLocal<int[]> STACK = ThreadLocal.withInitial(() -> new int[MAX_DEPTH + 2]);
+    private static final ThreadLocal<ShapeArrays.Query> QUERY = ThreadLocal.withInitial(ShapeArrays.Query::new);
+
+    // Only set by the constructors and on copies that are not published yet
+    private PersistentArray<ShapeArrays> groups;
+    private ShapeArrays unbounded;
+    /** Min x, y, z and max x, y, z of each node, 32 nodes per chunk */
+    private PersistentArray<double[]> bounds;
+    private final int[] offsets;
+    private final int[] counts;
+    private final int[] axes;
+    private final int[] parents;
+    /** Leaf node of each shape by its {@link Shape#getSource()}, -1 if unbounded */
+    private final Map<Shape, Integer> leaves;
+    private int nodeCount;
+    private int shapeCount;
+    private int refitCount;
+    private Object geometry = new Object();
+    private WeakReference<BVH> source;
+    private Map<Shape, Shape> replacements;
+
+    private double[] nodeBounds;
+    private double[] shapeBounds;
+    private double[] centroids;
+    private int[] order;
+
+    public BVH(List<Shape> objects) {
+        leaves = new IdentityHashMap<>();
+        List<Shape> boundedShapes = new ArrayList<>();
+        List<Shape> unboundedShapes = new ArrayList<>();
+        List<BoundingBox> boxes = new ArrayList<>();
+        for (Shape shape : objects) {
+            BoundingBox box = shape.getBounds();
+            if (box == null) {
+                unboundedShapes.add(shape);
+            }
+            else {
+                boundedShapes.add(shape);
+                boxes.add(box);
+            }
+        }
+
+        int n = boundedShapes.size();
+        nodeBounds = new double[Math.max(1, 2 * n - 1) * 6];
+        offsets = new int[Math.max(1, 2 * n - 1)];
+        counts = new int[offsets.length];
+        axes = new int[offsets.length];
+        parents = new int[offsets.length];
+
+        if (n > 0) {
+            buildHierarchy(boundedShapes, boxes);
+        }
+        compile(boundedShapes, unboundedShapes);
+        bounds = chunk(nodeBounds, Math.max(1, nodeCount));
+        nodeBounds = null;
+        shapeCount = objects.size();
+    }
+
+    /**
+     * Shares everything of {@code BVH} source, to be changed by
+     * {@link #edit(Map)} before it is published
+     */
+    private BVH(BVH source) {
+        groups = source.groups;
+        unbounded = source.unbounded;
+        bounds = source.bounds;
+        offsets = source.offsets;
+        counts = source.counts;
+        axes = source.axes;
+        parents = source.parents;
+        leaves = source.leaves;
+        nodeCount = source.nodeCount;
+        shapeCount = source.shapeCount;
+        refitCount = source.refitCount;
+        geometry = source.geometry;
+    }
+
+    private static PersistentArray<double[]> chunk(double[] flat, int nodes) {
+        List<double[]> chunks = new ArrayList<>();
+        for (int node = 0; node < nodes; node += CHUNK_MASK + 1) {
+            int end = Math.min(nodes, node + CHUNK_MASK + 1);
+            chunks.add(Arrays.copyOfRange(flat, node * 6, end * 6));
+        }
+        return PersistentArray.of(chunks);
+    }
+
+    private void buildHierarchy(List<Shape> boundedShapes, List<BoundingBox> boxes) {
+        int n = boundedShapes.size();
+        shapeBounds = new double[n * 6];
+        centroids = new double[n * 3];
+        order = new int[n];
+        for (int i = 0; i < n; i++) {
+            Vector3 min = boxes.get(i).getMin();
+            Vector3 max = boxes.get(i).getMax();
+            shapeBounds[i * 6] = min.x - PADDING;
+            shapeBounds[i * 6 + 1] = min.y - PADDING;
+            shapeBounds[i * 6 + 2] = min.z - PADDING;
+            shapeBounds[i * 6 + 3] = max.x + PADDING;
+            shapeBounds[i * 6 + 4] = max.y + PADDING;
+            shapeBounds[i * 6 + 5] = max.z + PADDING;
+            centroids[i * 3] = (min.x + max.x) / 2;
+            centroids[i * 3 + 1] = (min.y + max.y) / 2;
+            centroids[i * 3 + 2] = (min.z + max.z) / 2;
+            order[i] = i;
+        }
+
+        build(0, n, 0);
+        shapeBounds = null;
+        centroids = null;
+
+        parents[0] = -1;
+        for (int node = 0; node < nodeCount; node++) {
+            if (counts[node] == 0) {
+                parents[node + 1] = node;
+                parents[offsets[node]] = node;
+            }
+        }
+    }
+
+    /**
+     * Copies the shapes into {@code ShapeArrays}, one group per leaf in node
+     * order and one of the unbounded shapes, and points each leaf to its group
+     */
+    private void compile(List<Shape> boundedShapes, List<Shape> unboundedShapes) {
+        int n = boundedShapes.size();
+        Shape[] ordered = new Shape[n + unboundedShapes.size()];
+        for (int i = 0; i < n; i++) {
+            ordered[i] = boundedShapes.get(order[i]);
+        }
+        for (int i = 0; i < unboundedShapes.size(); i++) {
+            ordered[n + i] = unboundedShapes.get(i);
+        }
+        order = null;
+
+        List<ShapeArrays> leafGroups = new ArrayList<>();
+        for (int node = 0; node < nodeCount; node++) {
+            if (counts[node] > 0) {
+                int end = offsets[node] + counts[node];
+                for (int i = offsets[node]; i < end; i++) {
+                    addLeaf(ordered[i], node);
+                }
+                leafGroups.add(new ShapeArrays(ordered, offsets[node], end));
+                offsets[node] = leafGroups.size() - 1;
+            }
+        }
+        for (Shape shape : unboundedShapes) {
+            addLeaf(shape, -1);
+        }
+        groups = PersistentArray.of(leafGroups);
+        unbounded = new ShapeArrays(ordered, n, ordered.length);
+    }
+
+    private void addLeaf(Shape shape, int node) {
+        // A shape listed twice would have to be updated in two places
+        if (leaves.put(shape.getSource(), node) != null)
+            leaves.put(shape.getSource(), null);
+    }
+
+    private int build(int start, int end, int depth) {
+        int node = nodeCount++;
+        int count = end - start;
+
+        double[] box = emptyBounds();
+        double[] centroidBounds = emptyBounds();
+        for (int i = start; i < end; i++) {
+            growBounds(box, shapeBounds, order[i] * 6);
+            growPoint(centroidBounds, centroids, order[i] * 3);
+        }
+        System.arraycopy(box, 0, nodeBounds, node * 6, 6);
+
+        int bestAxis = -1;
+        int bestSplit = -1;
+        double bestCost = count * surfaceArea(box, 0);
+
+        if (count > 1 && depth < MAX_DEPTH) {
+            int[] binCounts = new int[BINS];
+            double[] binBounds = new double[BINS * 6];
+            double[] rightArea = new double[BINS];
+            for (int axis = 0; axis < 3; axis++) {
+                double cMin = centroidBounds[axis];
+                double cMax = centroidBounds[axis + 3];
+                if (cMax - cMin < 1e-12)
+                    continue;
+
+                double scale = BINS / (cMax - cMin);
+                Arrays.fill(binCounts, 0);
+                for (int b = 0; b < BINS; b++) {
+                    resetBounds(binBounds, b * 6);
+                }
+                for (int i = start; i < end; i++) {
+                    int b = binIndex(centroids[order[i] * 3 + axis], cMin, scale);
+                    binCounts[b]++;
+                    growBounds(binBounds, b * 6, shapeBounds, order[i] * 6);
+                }
+
+                double[] sweep = emptyBounds();
+                int rightCount = 0;
+                for (int b = BINS - 1; b > 0; b--) {
+                    rightCount += binCounts[b];
+                    growBounds(sweep, 0, binBounds, b * 6);
+                    rightArea[b] = rightCount == 0 ? 0 : rightCount * surfaceArea(sweep, 0);
+                }
+
+                resetBounds(sweep, 0);
+                int leftCount = 0;
+                for (int b = 0; b < BINS - 1; b++) {
+                    leftCount += binCounts[b];
+                    growBounds(sweep, 0, binBounds, b * 6);
+                    if (leftCount == 0 || leftCount == count)
+                        continue;
+                    double cost = TRAVERSAL_COST * surfaceArea(box, 0)
+                            + leftCount * surfaceArea(sweep, 0) + rightArea[b + 1];
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestSplit = b;
+                    }
+                }
+            }
+        }
+
+        if (bestAxis < 0 && count > MAX_LEAF_SIZE && depth < MAX_DEPTH) {
+            // No useful SAH split, fall back to a median split on the widest axis
+            bestAxis = widestAxis(centroidBounds);
+            bestSplit = -1;
+        }
+
+        if (bestAxis < 0) {
+            offsets[node] = start;
+            counts[node] = count;
+            return node;
+        }
+
+        int mid;
+        if (bestSplit >= 0) {
+            double cMin = centroidBounds[bestAxis];
+            double scale = BINS / (centroidBounds[bestAxis + 3] - cMin);
+            mid = start;
+            for (int i = start; i < end; i++) {
+                if (binIndex(centroids[order[i] * 3 + bestAxis], cMin, scale) <= bestSplit) {
+                    int temp = order[i];
+                    order[i] = order[mid];
+                    order[mid++] = temp;
+                }
+            }
+        }
+        else {
+            mid = start + count / 2;
+        }
+
+        axes[node] = bestAxis;
+        build(start, mid, depth + 1);
+        offsets[node] = build(mid, end, depth + 1);
+        return node;
+    }
+
+    /**
+     * Gets a copy of this hierarchy refit after {@code Shape} shape was moved or
+     * resized: the copy of its numbers, the bounds of its leaf and those of every
+     * node above it, stopping as soon as a node's bounds do not change. This
+     * {@code BVH} is not changed, so rays cast meanwhile are not affected
+     *
+     * @param shape {@code Shape} that changed
+     * @return {@code BVH} copy, {@code null} if the hierarchy has to be rebuilt
+     *         instead, because shape is not part of it or gained or lost its
+     *         bounds
+     */
+    public BVH refit(Shape shape) {
+        BVH copy = edit(Collections.singletonMap(shape, shape));
+        if (copy != null)
+            copy.refitCount++;
+        return copy;
+    }
+
+    /**
+     * Gets a copy of this {@code BVH} in which the keys of
+     * {@code Map<Shape, Shape>} replacements are swapped for their values,
+     * refitting the copy around them like {@link #refit(Shape)}
+     *
+     * @param replacements {@code Map<Shape, Shape>} from shapes of this
+     *                     {@code BVH} to their replacements, copies with the same
+     *                     {@link Shape#getSource()}
+     * @param moved        {@code boolean} whether any replacement was moved or
+     *                     resized, otherwise the copy keeps the geometry of this
+     *                     {@code BVH}, see {@link #getGeometry()}
+     * @return {@code BVH} copy, {@code null} if it has to be rebuilt instead,
+     *         see {@link #refit(Shape)}
+     */
+    public BVH replace(Map<Shape, Shape> replacements, boolean moved) {
+        BVH copy = edit(replacements);
+        if (copy == null)
+            return null;
+        if (moved) {
+            copy.refitCount += replacements.size();
+            copy.geometry = new Object();
+        }
+        copy.source = new WeakReference<>(this);
+        copy.replacements = replacements;
+        return copy;
+    }
+
+    /**
+     * Copies the chunks and groups on the paths of the swapped shapes, k swaps
+     * copy O(k log n) nodes and O(k depth) chunks
+     */
+    private BVH edit(Map<Shape, Shape> swaps) {
+        BVH copy = new BVH(this);
+        PersistentArray.Editor<ShapeArrays> groupEditor = groups.edit();
+        PersistentArray.Editor<double[]> boundsEditor = bounds.edit();
+        for (Map.Entry<Shape, Shape> entry : swaps.entrySet()) {
+            if (!copy.swap(entry.getKey(), entry.getValue(), groupEditor, boundsEditor))
+                return null;
+        }
+        copy.groups = groupEditor.done();
+        copy.bounds = boundsEditor.done();
+        return copy;
+    }
+
+    private boolean swap(Shape shape, Shape replacement, PersistentArray.Editor<ShapeArrays> groupEditor,
+            PersistentArray.Editor<double[]> boundsEditor) {
+        // Leaves are found by source, which copies share, so they are never copied
+        Integer leaf = replacement.getSource() == shape.getSource() ? leaves.get(shape.getSource()) : null;
+        if (leaf == null)
+            return false;
+        if (leaf < 0) {
+            ShapeArrays members = unbounded.copy();
+            if (replacement.getBounds() != null || !members.replace(shape, replacement))
+                return false;
+            unbounded = members;
+        }
+        else {
+            if (replacement.getBounds() == null)
+                return false;
+            ShapeArrays members = groupEditor.modify(offsets[leaf], ShapeArrays::copy);
+            if (!members.replace(shape, replacement))
+                return false;
+            refitBounds(leaf, members, boundsEditor);
+        }
+        return true;
+    }
+
+    private void refitBounds(int leaf, ShapeArrays members, PersistentArray.Editor<double[]> boundsEditor) {
+        double[] box = emptyBounds();
+        for (Shape member : members.getShapes()) {
+            BoundingBox memberBox = member.getBounds();
+            Vector3 min = memberBox.getMin();
+            Vector3 max = memberBox.getMax();
+            box[0] = Math.min(box[0], min.x - PADDING);
+            box[1] = Math.min(box[1], min.y - PADDING);
+            box[2] = Math.min(box[2], min.z - PADDING);
+            box[3] = Math.max(box[3], max.x + PADDING);
+            box[4] = Math.max(box[4], max.y + PADDING);
+            box[5] = Math.max(box[5], max.z + PADDING);
+        }
+
+        int node = leaf;
+        while (node >= 0) {
+            int b = (node & CHUNK_MASK) * 6;
+            if (Arrays.equals(boundsEditor.get(node >>> CHUNK_BITS), b, b + 6, box, 0, 6))
+                break;
+            double[] chunk = boundsEditor.modify(node >>> CHUNK_BITS, double[]::clone);
+            System.arraycopy(box, 0, chunk, b, 6);
+            node = parents[node];
+            if (node >= 0) {
+                resetBounds(box, 0);
+                growBounds(box, boundsEditor.get((node + 1) >>> CHUNK_BITS), ((node + 1) & CHUNK_MASK) * 6);
+                growBounds(box, boundsEditor.get(offsets[node] >>> CHUNK_BITS), (offsets[node] & CHUNK_MASK) * 6);
+            }
+        }
+    }
+
+    /**
+     * Gets {@code int} number of successful {@link #refit(Shape)} calls, which
+     * also tells renderers that cache anything derived from the geometry that it
+     * changed
+     *
+     * @return {@code int} refit count
+     */
+    public int getRefitCount() {
+        return refitCount;
+    }
+
+    /**
+     * Gets an {@code Object} that identifies the geometry of this {@code BVH}
+     * together with {@link #getRefitCount()}. Copies made by
+     * {@link #replace(Map, boolean)} without moving any shape share it, so
+     * renderers can keep what they derived from the geometry
+     *
+     * @return {@code Object} geometry token
+     */
+    public Object getGeometry() {
+        return geometry;
+    }
+
+    /**
+     * Gets the shapes swapped when this {@code BVH} was made from {@code BVH}
+     * previous by {@link #replace(Map, boolean)}
+     *
+     * @param previous {@code BVH} that may have been copied
+     * @return {@code Map<Shape, Shape>} from shapes of previous to their
+     *         replacements, {@code null} if this {@code BVH} is no copy of
+     *         previous
+     */
+    public Map<Shape, Shape> getReplacements(BVH previous) {
+        return source != null && source.get() == previous ? replacements : null;
+    }
+
+    private static int binIndex(double centroid, double min, double scale) {
+        return Math.min(BINS - 1, (int) ((centroid - min) * scale));
+    }
+
+    private static int widestAxis(double[] box) {
+        double dx = box[3] - box[0];
+        double dy = box[4] - box[1];
+        double dz = box[5] - box[2];
+        if (dx >= dy && dx >= dz)
+            return 0;
+        return dy >= dz ? 1 : 2;
+    }
+
+    private static double[] emptyBounds() {
+        double[] box = new double[6];
+        resetBounds(box, 0);
+        return box;
+    }
+
+    private static void resetBounds(double[] box, int offset) {
+        for (int i = 0; i < 3; i++) {
+            box[offset + i] = Double.POSITIVE_INFINITY;
+            box[offset + i + 3] = Double.NEGATIVE_INFINITY;
+        }
+    }
+
+    private static void growBounds(double[] box, double[] other, int offset) {
+        growBounds(box, 0, other, offset);
+    }
+
+    private static void growBounds(double[] box, int boxOffset, double[] other, int offset) {
+        for (int i = 0; i < 3; i++) {
+            box[boxOffset + i] = Math.min(box[boxOffset + i], other[offset + i]);
+            box[boxOffset + i + 3] = Math.max(box[boxOffset + i + 3], other[offset + i + 3]);
+        }
+    }
+
+    private static void growPoint(double[] box, double[] points, int offset) {
+        for (int i = 0; i < 3; i++) {
+            box[i] = Math.min(box[i], points[offset + i]);
+            box[i + 3] = Math.max(box[i + 3], points[offset + i]);
+        }
+    }
+
+    private static double surfaceArea(double[] box, int offset) {
+        double dx = box[offset + 3] - box[offset];
+        double dy = box[offset + 4] - box[offset + 1];
+        double dz = box[offset + 5] - box[offset + 2];
+        if (dx < 0 || dy < 0 || dz < 0)
+            return 0;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Finds the closest {@code RayHit} of {@code Ray} ray with any
+     * {@code Shape} in this hierarchy within [tMin, tMax], skipping the ray's
+     * ignored {@code Shape}. The interval shrinks to the closest hit found so
+     * far, so nodes and shapes beyond it are rejected early
+     *
+     * @param ray  {@code Ray} to be cast
+     * @param tMin {@code double} smallest accepted distance
+     * @param tMax {@code double} largest accepted distance
+     * @return closest {@code RayHit}, {@code null} if nothing was hit
+     */
+    public RayHit cast(Ray ray, double tMin, double tMax) {
+        ShapeArrays.Query query = QUERY.get();
+        query.set(ray, tMin, tMax);
+        unbounded.intersect(query);
+
+        if (nodeCount > 0) {
+            double ox = query.ox, oy = query.oy, oz = query.oz;
+            double ix = 1 / query.dx, iy = 1 / query.dy, iz = 1 / query.dz;
+
+            int[] stack = STACK.get();
+            int stackSize = 0;
+            int node = 0;
+            // Nodes are mostly visited in order, so their chunk rarely changes
+            double[] chunk = null;
+            int chunkIndex = -1;
+            while (true) {
+                int c = node >>> CHUNK_BITS;
+                if (c != chunkIndex) {
+                    chunk = bounds.get(c);
+                    chunkIndex = c;
+                }
+                if (intersectsNode(chunk, (node & CHUNK_MASK) * 6, ox, oy, oz, ix, iy, iz, tMin, query.closest)) {
+                    if (counts[node] > 0) {
+                        groups.get(offsets[node]).intersect(query);
+                    }
+                    else if (isNegative(axes[node], ix, iy, iz)) {
+                        stack[stackSize++] = node + 1;
+                        node = offsets[node];
+                        continue;
+                    }
+                    else {
+                        stack[stackSize++] = offsets[node];
+                        node = node + 1;
+                        continue;
+                    }
+                }
+                if (stackSize == 0)
+                    break;
+                node = stack[--stackSize];
+            }
+        }
+        RayHit hit = query.closestShape == null ? null : new RayHit(ray, query.closestShape, query.closest);
+        query.clear();
+        return hit;
+    }
+
+    /**
+     * Finds the closest hit of every ray of {@code RayPacket} packet, like
+     * {@link #cast(Ray, double, double)} for each of them. The packet descends
+     * into a node if any of its rays hits the node, and leaves are intersected
+     * with all rays at once through {@code PacketKernel} kernel
+     *
+     * @param packet {@code RayPacket} to be cast, results are read with
+     *               {@link RayPacket#getHit(int)}
+     * @param kernel {@code PacketKernel} used for the intersection tests
+     */
+    public void cast(RayPacket packet, PacketKernel kernel) {
+        unbounded.intersect(packet, kernel);
+
+        if (nodeCount == 0 || packet.size() == 0)
+            return;
+
+        int[] stack = STACK.get();
+        int stackSize = 0;
+        int node = 0;
+        double[] chunk = null;
+        int chunkIndex = -1;
+        while (true) {
+            int c = node >>> CHUNK_BITS;
+            if (c != chunkIndex) {
+                chunk = bounds.get(c);
+                chunkIndex = c;
+            }
+            if (intersectsNode(chunk, (node & CHUNK_MASK) * 6, packet)) {
+                if (counts[node] > 0) {
+                    groups.get(offsets[node]).intersect(packet, kernel);
+                }
+                else if (isNegative(axes[node], packet.ix[0], packet.iy[0], packet.iz[0])) {
+                    stack[stackSize++] = node + 1;
+                    node = offsets[node];
+                    continue;
+                }
+                else {
+                    stack[stackSize++] = offsets[node];
+                    node = node + 1;
+                    continue;
+                }
+            }
+            if (stackSize == 0)
+                break;
+            node = stack[--stackSize];
+        }
+    }
+
+    private static boolean intersectsNode(double[] bounds, int b, RayPacket packet) {
+        double tMin = packet.getTMin();
+        for (int i = 0; i < packet.size(); i++) {
+            if (intersectsNode(bounds, b, packet.ox[i], packet.oy[i], packet.oz[i], packet.ix[i], packet.iy[i],
+                    packet.iz[i], tMin, packet.t[i]))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Finds any {@code Shape} blocking {@code Ray} ray within [tMin, tMax],
+     * returning on the first hit instead of searching for the closest one.
+     * {@code Shape} hint, usually the last occluder found for the same light, is
+     * tested before the hierarchy is traversed
+     *
+     * @param ray  {@code Ray} to be cast
+     * @param tMin {@code double} smallest accepted distance
+     * @param tMax {@code double} largest accepted distance
+     * @param hint {@code Shape} to be tested first, may be {@code null}
+     * @return blocking {@code Shape}, {@code null} if the interval is free
+     */
+    public Shape findOccluder(Ray ray, double tMin, double tMax, Shape hint) {
+        Shape ignore = ray.getIgnore();
+        if (hint != null && hint != ignore && hint.intersect(ray, tMin, tMax) != Shape.NO_HIT)
+            return hint;
+
+        ShapeArrays.Query query = QUERY.get();
+        query.set(ray, tMin, tMax);
+        Shape occluder = findOccluder(query, hint);
+        query.clear();
+        return occluder;
+    }
+
+    private Shape findOccluder(ShapeArrays.Query query, Shape hint) {
+        Shape occluder = unbounded.findOccluder(query, hint);
+        if (occluder != null || nodeCount == 0)
+            return occluder;
+
+        double ox = query.ox, oy = query.oy, oz = query.oz;
+        double ix = 1 / query.dx, iy = 1 / query.dy, iz = 1 / query.dz;
+
+        int[] stack = STACK.get();
+        int stackSize = 0;
+        int node = 0;
+        double[] chunk = null;
+        int chunkIndex = -1;
+        while (true) {
+            int c = node >>> CHUNK_BITS;
+            if (c != chunkIndex) {
+                chunk = bounds.get(c);
+                chunkIndex = c;
+            }
+            if (intersectsNode(chunk, (node & CHUNK_MASK) * 6, ox, oy, oz, ix, iy, iz, query.tMin,
+                    query.closest)) {
+                if (counts[node] > 0) {
+                    occluder = groups.get(offsets[node]).findOccluder(query, hint);
+                    if (occluder != null)
+                        return occluder;
+                }
+                else {
+                    stack[stackSize++] = offsets[node];
+                    node = node + 1;
+                    continue;
+                }
+            }
+            if (stackSize == 0)
+                break;
+            node = stack[--stackSize];
+        }
+        return null;
+    }
+
+    private static boolean isNegative(int axis, double ix, double iy, double iz) {
+        return (axis == 0 ? ix : axis == 1 ? iy : iz) < 0;
+    }
+
+    private static boolean intersectsNode(double[] bounds, int b, double ox, double oy, double oz, double ix,
+            double iy, double iz, double tMin, double tMax) {
+        double tNear = tMin;
+        double tFar = tMax;
+
+        double t1 = (bounds[b] - ox) * ix;
+        double t2 = (bounds[b + 3] - ox) * ix;
+        double near = t1 < t2 ? t1 : t2;
+        double far = t1 < t2 ? t2 : t1;
+        if (near > tNear)
+            tNear = near;
+        if (far < tFar)
+            tFar = far;
+
+        t1 = (bounds[b + 1] - oy) * iy;
+        t2 = (bounds[b + 4] - oy) * iy;
+        near = t1 < t2 ? t1 : t2;
+        far = t1 < t2 ? t2 : t1;
+        if (near > tNear)
+            tNear = near;
+        if (far < tFar)
+            tFar = far;
+
+        t1 = (bounds[b + 2] - oz) * iz;
+        t2 = (bounds[b + 5] - oz) * iz;
+        near = t1 < t2 ? t1 : t2;
+        far = t1 < t2 ? t2 : t1;
+        if (near > tNear)
+            tNear = near;
+        if (far < tFar)
+            tFar = far;
+
+        return tNear <= tFar;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getShapeCount() {
+        return shapeCount;
+    }
+}
@@ -0,0 +1,188 @@
+package gameboy.utilities.data;
+
+import java.util.Map;
+
+import gameboy.utilities.Camera;
+import gameboy.utilities.Scene;
+import gameboy.utilities.Shape;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Primary hits of an image, one entry per traced pixel: the {@code Shape}, the
+ * distance t, the hit point and the surface normal, or the sky if nothing was
+ * hit. As long as the camera and the geometry stay the same the entries can be
+ * shaded again without casting their primary rays, so edits of lights and
+ * materials only cost a shading pass. Entries are dropped as a whole once the
+ * camera moves or a {@code Shape} changes. Shapes a snapshot of the
+ * {@code Scene} swapped for copies with another {@code Material} are swapped
+ * in the entries as well.
+ */
+public class GBuffer {
+
+    private final int width;
+    private final int height;
+    private final Shape[] shapes;
+    private final double[] distances;
+    private final double[] points;
+    private final double[] normals;
+    private final double[] directions;
+    /** Epoch each entry was written in, older entries are invalid */
+    private final int[] stamps;
+    private int epoch = 1;
+
+    private Camera camera;
+    private double cameraX, cameraY, cameraZ, yaw, pitch, fov;
+    private BVH objects;
+    private Object geometry;
+    private int refitCount;
+
+    public GBuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        int pixels = width * height;
+        shapes = new Shape[pixels];
+        distances = new double[pixels];
+        points = new double[pixels * 3];
+        normals = new double[pixels * 3];
+        directions = new double[pixels * 3];
+        stamps = new int[pixels];
+    }
+
+    /**
+     * Drops all entries if the camera of {@code Scene} scene or its geometry
+     * changed since the last call, has to be called before every frame
+     *
+     * @param scene {@code Scene} to be rendered
+     */
+    public void validate(Scene scene) {
+        if (matches(scene)) {
+            BVH current = scene.getBVH();
+            if (current != objects)
+                replace(current.getReplacements(objects));
+            objects = current;
+            return;
+        }
+        Camera current = scene.getCurrentCamera();
+        Vector3 position = current.getPosition();
+        epoch++;
+        camera = current;
+        cameraX = position.x;
+        cameraY = position.y;
+        cameraZ = position.z;
+        yaw = current.getYaw();
+        pitch = current.getPitch();
+        fov = current.getFOV();
+        objects = scene.getBVH();
+        geometry = objects.getGeometry();
+        refitCount = objects.getRefitCount();
+    }
+
+    private void replace(Map<Shape, Shape> replacements) {
+        Shape last = null, replacement = null;
+        for (int i = 0; i < shapes.length; i++) {
+            Shape shape = shapes[i];
+            if (shape == null || stamps[i] != epoch)
+                continue;
+            // Neighbouring entries mostly hold the same shape
+            if (shape != last) {
+                last = shape;
+                replacement = replacements.getOrDefault(shape, shape);
+            }
+            shapes[i] = replacement;
+        }
+    }
+
+    /**
+     * Checks whether the entries are still valid for {@code Scene} scene, i.e.
+     * neither its camera nor its geometry changed since the last
+     * {@link #validate(Scene)}, and its {@code BVH} is the same or a copy of the
+     * last one, see {@link BVH#replace(Map, boolean)}
+     *
+     * @param scene {@code Scene} to be rendered
+     * @return {@code true} if the entries can be shaded again
+     */
+    public boolean matches(Scene scene) {
+        Camera current = scene.getCurrentCamera();
+        Vector3 position = current.getPosition();
+        BVH currentObjects = scene.getBVH();
+        return current == camera && position.x == cameraX && position.y == cameraY && position.z == cameraZ
+                && current.getYaw() == yaw && current.getPitch() == pitch && current.getFOV() == fov
+                && currentObjects.getGeometry() == geometry && currentObjects.getRefitCount() == refitCount
+                && (currentObjects == objects || currentObjects.getReplacements(objects) != null);
+    }
+
+    /**
+     * Drops all entries
+     */
+    public void clear() {
+        epoch++;
+    }
+
+    /**
+     * Checks whether the pixel at x, y was traced since the last change
+     *
+     * @return {@code true} if {@link #getHit(int, int)} can be used instead of
+     *         casting the primary ray
+     */
+    public boolean contains(int x, int y) {
+        return stamps[y * width + x] == epoch;
+    }
+
+    /**
+     * Stores the primary hit of the pixel at x, y
+     *
+     * @param hit {@code RayHit} of the primary ray, {@code null} if it saw the
+     *            sky
+     */
+    public void put(int x, int y, RayHit hit) {
+        int i = y * width + x;
+        shapes[i] = hit == null ? null : hit.getShape();
+        if (hit != null) {
+            // Primary rays only share their origin in perspective projections
+            Vector3 direction = hit.getRay().getDirection();
+            Vector3 point = hit.getHitPoint();
+            Vector3 normal = hit.getNormal();
+            distances[i] = hit.getDistance();
+            points[i * 3] = point.x;
+            points[i * 3 + 1] = point.y;
+            points[i * 3 + 2] = point.z;
+            normals[i * 3] = normal.x;
+            normals[i * 3 + 1] = normal.y;
+            normals[i * 3 + 2] = normal.z;
+            directions[i * 3] = direction.x;
+            directions[i * 3 + 1] = direction.y;
+            directions[i * 3 + 2] = direction.z;
+        }
+        stamps[i] = epoch;
+    }
+
+    /**
+     * Gets the primary hit of the pixel at x, y, which has to be
+     * {@link #contains(int, int) contained}
+     *
+     * @return {@code RayHit} with the stored hit point and normal, {@code null}
+     *         if the pixel sees the sky
+     */
+    public RayHit getHit(int x, int y) {
+        int i = y * width + x;
+        Shape shape = shapes[i];
+        if (shape == null)
+            return null;
+
+        Vector3 point = new Vector3(points[i * 3], points[i * 3 + 1], points[i * 3 + 2]);
+        Vector3 direction = new Vector3(directions[i * 3], directions[i * 3 + 1], directions[i * 3 + 2]);
+        Ray ray = new Ray(point.subtract(direction.scale(distances[i])), direction);
+        Vector3 normal = new Vector3(normals[i * 3], normals[i * 3 + 1], normals[i * 3 + 2]);
+        return new RayHit(ray, shape, point, distances[i], normal);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
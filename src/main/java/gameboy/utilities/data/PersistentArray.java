@@ -0,0 +1,216 @@
+package gameboy.utilities.data;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+
+/**
+ * Array of fixed length that is never changed once it is created. Elements are
+ * kept in a tree of 32-way nodes, so an element is found by following one node
+ * per five bits of its index. {@link #edit()} changes elements on copies of the
+ * nodes on their paths only, the new {@code PersistentArray} shares all other
+ * nodes with this one. k changes of an array of n elements copy O(k log n)
+ * references, and threads still reading this array are not affected
+ *
+ * @param <E> type of the elements
+ */
+public final class PersistentArray<E> {
+
+    private static final int BITS = 5;
+    private static final int WIDTH = 1 << BITS;
+    private static final int MASK = WIDTH - 1;
+
+    private final Object[] root;
+    /** Bits of an index above those of the leaf nodes, 0 if the root is a leaf */
+    private final int shift;
+    private final int length;
+
+    private PersistentArray(Object[] root, int shift, int length) {
+        this.root = root;
+        this.shift = shift;
+        this.length = length;
+    }
+
+    /**
+     * Creates a {@code PersistentArray} of the elements of {@code List<E>}
+     * elements, in O(n)
+     *
+     * @param elements {@code List<E>} to be copied
+     * @return new {@code PersistentArray}
+     */
+    public static <E> PersistentArray<E> of(List<? extends E> elements) {
+        int length = elements.size();
+        Object[] level = new Object[(length + MASK) >>> BITS];
+        for (int node = 0; node < level.length; node++) {
+            Object[] leaf = new Object[Math.min(WIDTH, length - (node << BITS))];
+            for (int i = 0; i < leaf.length; i++) {
+                leaf[i] = elements.get((node << BITS) + i);
+            }
+            level[node] = leaf;
+        }
+        int shift = 0;
+        while (level.length > 1) {
+            Object[] parents = new Object[(level.length + MASK) >>> BITS];
+            for (int node = 0; node < parents.length; node++) {
+                Object[] parent = new Object[Math.min(WIDTH, level.length - (node << BITS))];
+                System.arraycopy(level, node << BITS, parent, 0, parent.length);
+                parents[node] = parent;
+            }
+            level = parents;
+            shift += BITS;
+        }
+        return new PersistentArray<>(level.length == 0 ? level : (Object[]) level[0], shift, length);
+    }
+
+    /**
+     * Gets the element at index
+     *
+     * @param index {@code int} index in [0, {@link #length()})
+     * @return element at index
+     */
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[(index >>> level) & MASK];
+        }
+        return (E) node[index & MASK];
+    }
+
+    public int length() {
+        return length;
+    }
+
+    /**
+     * Starts changing elements, see {@link Editor}
+     *
+     * @return new {@code Editor} of this {@code PersistentArray}
+     */
+    public Editor<E> edit() {
+        return new Editor<>(this);
+    }
+
+    /**
+     * Gets an unmodifiable {@code List<E>} view of this {@code PersistentArray}
+     *
+     * @return {@code List<E>} view
+     */
+    public List<E> asList() {
+        return new ListView<>(this);
+    }
+
+    /**
+     * Changes elements of a {@code PersistentArray} into a new
+     * {@code PersistentArray}. Every node on the path to a changed element is
+     * copied the first time it is changed, later changes through the same
+     * {@code Editor} change the copy, so k changes copy at most k paths. Only to
+     * be used by one thread
+     *
+     * @param <E> type of the elements
+     */
+    public static final class Editor<E> {
+
+        private final PersistentArray<E> source;
+        private Object[] root;
+        /** Nodes and elements copied by this {@code Editor}, which it may change */
+        private Set<Object> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        private Editor(PersistentArray<E> source) {
+            this.source = source;
+            this.root = source.root;
+        }
+
+        /**
+         * Gets the element at index, including changes of this {@code Editor}
+         */
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            Object[] node = root;
+            for (int level = source.shift; level > 0; level -= BITS) {
+                node = (Object[]) node[(index >>> level) & MASK];
+            }
+            return (E) node[index & MASK];
+        }
+
+        /**
+         * Sets the element at index to element
+         *
+         * @throws IllegalStateException if {@link #done()} was called
+         */
+        public void set(int index, E element) {
+            if (owned == null)
+                throw new IllegalStateException("Editor is done");
+            if (!owned.contains(root)) {
+                root = root.clone();
+                owned.add(root);
+            }
+            Object[] node = root;
+            for (int level = source.shift; level > 0; level -= BITS) {
+                int i = (index >>> level) & MASK;
+                Object[] child = (Object[]) node[i];
+                if (!owned.contains(child)) {
+                    child = child.clone();
+                    owned.add(child);
+                    node[i] = child;
+                }
+                node = child;
+            }
+            node[index & MASK] = element;
+        }
+
+        /**
+         * Gets the element at index to be changed in place. The first call for an
+         * index replaces the element with copier's copy of it, later calls return
+         * that copy
+         *
+         * @param index  {@code int} index of the element
+         * @param copier {@code UnaryOperator<E>} copying an element
+         * @return element owned by this {@code Editor}
+         */
+        public E modify(int index, UnaryOperator<E> copier) {
+            E element = get(index);
+            if (owned == null || !owned.contains(element)) {
+                element = copier.apply(element);
+                set(index, element);
+                owned.add(element);
+            }
+            return element;
+        }
+
+        /**
+         * Ends editing, after which this {@code Editor} cannot be used anymore
+         *
+         * @return {@code PersistentArray} with all changes, the source if nothing
+         *         was changed
+         */
+        public PersistentArray<E> done() {
+            owned = null;
+            return root == source.root ? source : new PersistentArray<>(root, source.shift, source.length);
+        }
+    }
+
+    private static final class ListView<E> extends AbstractList<E> implements RandomAccess {
+
+        private final PersistentArray<E> array;
+
+        ListView(PersistentArray<E> array) {
+            this.array = array;
+        }
+
+        @Override
+        public E get(int index) {
+            if (index < 0 || index >= array.length)
+                throw new IndexOutOfBoundsException("Index " + index + " of " + array.length);
+            return array.get(index);
+        }
+
+        @Override
+        public int size() {
+            return array.length;
+        }
+    }
+}
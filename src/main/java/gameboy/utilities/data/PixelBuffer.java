@@ -1,26 +1,93 @@
 package gameboy.utilities.data;
 
+import java.util.Arrays;
+
+/**
+ * Linear floating point RGB image that shading writes to, with 1 being full
+ * intensity. Values are neither clamped nor quantized until the buffer is
+ * tonemapped into packed pixels, so light above full intensity is kept and
+ * several samples can be summed per pixel.
+ */
 public class PixelBuffer {
-    private PixelData[][] buffer;
-    private int height;
-    private int width;
+    private final float[] data;
+    private final int height;
+    private final int width;
 
     public PixelBuffer(int width, int height) {
-        buffer = new PixelData[height][width];
+        this.data = new float[width * height * 3];
         this.height = height;
         this.width = width;
     }
 
-    public void setPixelData(int x, int y, PixelData data) {
-        buffer[y][x] = data;
+    public void set(int x, int y, double red, double green, double blue) {
+        int i = (y * width + x) * 3;
+        data[i] = (float) red;
+        data[i + 1] = (float) green;
+        data[i + 2] = (float) blue;
+    }
+
+    /**
+     * Adds red, green and blue to the pixel at x, y, used to sum up several
+     * samples of one pixel
+     */
+    public void add(int x, int y, double red, double green, double blue) {
+        int i = (y * width + x) * 3;
+        data[i] += (float) red;
+        data[i + 1] += (float) green;
+        data[i + 2] += (float) blue;
+    }
+
+    /**
+     * Sets every pixel of the rectangle x0, y0 to x1, y1 (exclusive) to the same
+     * value
+     */
+    public void fill(int x0, int y0, int x1, int y1, double red, double green, double blue) {
+        float r = (float) red, g = (float) green, b = (float) blue;
+        for (int y = y0; y < y1; y++) {
+            for (int i = (y * width + x0) * 3; i < (y * width + x1) * 3; i += 3) {
+                data[i] = r;
+                data[i + 1] = g;
+                data[i + 2] = b;
+            }
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(data, 0);
+    }
+
+    public float getRed(int x, int y) {
+        return data[(y * width + x) * 3];
+    }
+
+    public float getGreen(int x, int y) {
+        return data[(y * width + x) * 3 + 1];
     }
 
-    public PixelData getPixelData(int x, int y) {
-        return buffer[y][x];
+    public float getBlue(int x, int y) {
+        return data[(y * width + x) * 3 + 2];
     }
 
-    public PixelData[][] getBuffer() {
-        return buffer;
+    /**
+     * Tonemaps rows y0 to y1 (exclusive) into {@code int[]} pixels in the layout
+     * of {@code BufferedImage.TYPE_INT_RGB}
+     *
+     * @param pixels   {@code int[]} to write, row y starts at y * stride
+     * @param stride   {@code int} length of one row of pixels, at least the width
+     * @param tonemap  {@code Tonemap} operator
+     * @param exposure {@code double} factor applied before the operator, e.g.
+     *                 1 divided by the number of summed samples
+     */
+    public void tonemap(int[] pixels, int stride, int y0, int y1, Tonemap tonemap, double exposure) {
+        float scale = (float) exposure;
+        for (int y = y0; y < y1; y++) {
+            int i = y * width * 3;
+            int rowStart = y * stride;
+            for (int x = 0; x < width; x++, i += 3) {
+                pixels[rowStart + x] = (tonemap.quantize(data[i] * scale) << 16)
+                        | (tonemap.quantize(data[i + 1] * scale) << 8) | tonemap.quantize(data[i + 2] * scale);
+            }
+        }
     }
 
     public int getHeight() {
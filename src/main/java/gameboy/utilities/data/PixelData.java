@@ -1,11 +1,8 @@
 package gameboy.utilities.data;
 
 import gameboy.utilities.Color;
-import java.util.LinkedList;
-import java.util.List;
-
-import gameboy.lights.Light;
 import gameboy.utilities.Material;
+import gameboy.utilities.Scene;
 import gameboy.utilities.Shape;
 import gameboy.utilities.math.Ray;
 import gameboy.utilities.math.RayHit;
@@ -15,17 +12,14 @@ public class PixelData {
     private Ray ray;
     private Shape shape;
     private Material material;
-    private LinkedList<Shape> objectsExcl;
-    private List<Light> lights;
+    private Scene scene;
 
-    public PixelData(RayHit hit, List<Light> lights, List<Shape> objects) {
-        objectsExcl = new LinkedList<>(objects);
-        objectsExcl.remove(hit.getShape());
+    public PixelData(RayHit hit, Scene scene) {
         this.ray = hit.getRay();
         this.shape = hit.getShape();
         this.material = shape.getMaterial();
         this.hit = hit;
-        this.lights = lights;
+        this.scene = scene;
     }
 
     public RayHit getHit() {
@@ -33,7 +27,7 @@ public class PixelData {
     }
 
     public Color getColor() {
-        return material.shade(hit, lights, objectsExcl);
+        return material.shade(hit, scene);
     }
 
     public Material getMaterial() {
@@ -0,0 +1,436 @@
+package gameboy.utilities.data;
+
+import gameboy.geometries.Cube;
+import gameboy.geometries.Plane;
+import gameboy.geometries.Sphere;
+import gameboy.utilities.Shape;
+import gameboy.utilities.math.PacketKernel;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayPacket;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Flattened copy of the {@code Shape}s of one group of a {@link BVH}, a leaf
+ * or its unbounded shapes, split by type. Spheres, cubes and planes are stored
+ * as consecutive numbers in one {@code double[]} per type and intersected in
+ * loops over those arrays, so a leaf is tested without following pointers to
+ * anchors and without virtual calls. Shapes of any other type are kept as
+ * objects and intersected through {@link Shape#intersect(Ray, double, double)}.
+ * The numbers are copied when the {@code BVH} is built. A {@code BVH} that is
+ * refit copies the groups of the changed shapes with {@link #copy()} and then
+ * copies their numbers again with {@link #update(Shape)} or
+ * {@link #replace(Shape, Shape)}, a group is never changed once it is
+ * traversed
+ */
+class ShapeArrays {
+
+    private static final int SPHERE = 0;
+    private static final int CUBE = 1;
+    private static final int PLANE = 2;
+    private static final int OTHER = 3;
+    private static final int TYPES = 4;
+
+    private static final int SPHERE_STRIDE = 4;
+    private static final int CUBE_STRIDE = 4;
+    private static final int PLANE_STRIDE = 6;
+
+    private static final double[] NO_NUMBERS = new double[0];
+    private static final Shape[] NO_SHAPES = new Shape[0];
+
+    /** Center x, y, z and radius of each sphere */
+    private final double[] spheres;
+    /** Center x, y, z and half side length of each cube */
+    private final double[] cubes;
+    /** Anchor x, y, z and normal x, y, z of each plane */
+    private final double[] planes;
+    private final Shape[] sphereShapes;
+    private final Shape[] cubeShapes;
+    private final Shape[] planeShapes;
+    private final Shape[] others;
+
+    /**
+     * @param shapes {@code Shape[]} holding the group
+     * @param from   {@code int} index of its first shape
+     * @param to     {@code int} exclusive index of its last shape
+     */
+    ShapeArrays(Shape[] shapes, int from, int to) {
+        int[] totals = new int[TYPES];
+        for (int i = from; i < to; i++) {
+            totals[typeOf(shapes[i])]++;
+        }
+        spheres = numbers(totals[SPHERE] * SPHERE_STRIDE);
+        cubes = numbers(totals[CUBE] * CUBE_STRIDE);
+        planes = numbers(totals[PLANE] * PLANE_STRIDE);
+        sphereShapes = shapes(totals[SPHERE]);
+        cubeShapes = shapes(totals[CUBE]);
+        planeShapes = shapes(totals[PLANE]);
+        others = shapes(totals[OTHER]);
+
+        int[] next = new int[TYPES];
+        for (int i = from; i < to; i++) {
+            add(shapes[i], next);
+        }
+    }
+
+    private ShapeArrays(ShapeArrays source) {
+        spheres = source.spheres.clone();
+        cubes = source.cubes.clone();
+        planes = source.planes.clone();
+        sphereShapes = source.sphereShapes.clone();
+        cubeShapes = source.cubeShapes.clone();
+        planeShapes = source.planeShapes.clone();
+        others = source.others.clone();
+    }
+
+    /**
+     * Copies this group, so that its shapes can be updated or replaced without
+     * changing it
+     *
+     * @return {@code ShapeArrays} copy
+     */
+    ShapeArrays copy() {
+        return new ShapeArrays(this);
+    }
+
+    private static double[] numbers(int length) {
+        return length == 0 ? NO_NUMBERS : new double[length];
+    }
+
+    private static Shape[] shapes(int length) {
+        return length == 0 ? NO_SHAPES : new Shape[length];
+    }
+
+    private static int typeOf(Shape shape) {
+        // Exact classes only, a subclass may intersect differently
+        if (shape.getClass() == Sphere.class)
+            return SPHERE;
+        if (shape.getClass() == Cube.class)
+            return CUBE;
+        if (shape.getClass() == Plane.class)
+            return PLANE;
+        return OTHER;
+    }
+
+    private Shape[] shapesOf(int type) {
+        return type == SPHERE ? sphereShapes : type == CUBE ? cubeShapes : type == PLANE ? planeShapes : others;
+    }
+
+    private void add(Shape shape, int[] next) {
+        int type = typeOf(shape);
+        int index = next[type]++;
+        shapesOf(type)[index] = shape;
+        write(shape, type, index);
+    }
+
+    private void write(Shape shape, int type, int index) {
+        Vector3 anchor = shape.getAnchor();
+        switch (type) {
+        case SPHERE:
+            put(spheres, index * SPHERE_STRIDE, anchor.x, anchor.y, anchor.z, ((Sphere) shape).getRadius());
+            break;
+        case CUBE:
+            put(cubes, index * CUBE_STRIDE, anchor.x, anchor.y, anchor.z, ((Cube) shape).getSideLength() / 2d);
+            break;
+        case PLANE:
+            Vector3 axis = ((Plane) shape).getAxis();
+            put(planes, index * PLANE_STRIDE, anchor.x, anchor.y, anchor.z, axis.x, axis.y, axis.z);
+            break;
+        default:
+        }
+    }
+
+    /**
+     * Copies the numbers of {@code Shape} shape again after it was moved or
+     * resized
+     *
+     * @param shape {@code Shape} to be updated
+     * @return {@code false} if shape is not part of this group
+     */
+    boolean update(Shape shape) {
+        return replace(shape, shape);
+    }
+
+    /**
+     * Swaps {@code Shape} shape for {@code Shape} replacement of the same class
+     * and copies the numbers of replacement
+     *
+     * @param shape       {@code Shape} to be replaced
+     * @param replacement {@code Shape} taking its place
+     * @return {@code false} if shape is not part of this group or replacement is
+     *         of another type
+     */
+    boolean replace(Shape shape, Shape replacement) {
+        int type = typeOf(shape);
+        if (typeOf(replacement) != type)
+            return false;
+        Shape[] typeShapes = shapesOf(type);
+        for (int i = 0; i < typeShapes.length; i++) {
+            if (typeShapes[i] == shape) {
+                typeShapes[i] = replacement;
+                write(replacement, type, i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void put(double[] array, int offset, double... values) {
+        System.arraycopy(values, 0, array, offset, values.length);
+    }
+
+    /**
+     * Gets the shapes of this group, type after type
+     *
+     * @return new {@code Shape[]}
+     */
+    Shape[] getShapes() {
+        Shape[] shapes = new Shape[size()];
+        int next = 0;
+        for (int type = 0; type < TYPES; type++) {
+            Shape[] typeShapes = shapesOf(type);
+            System.arraycopy(typeShapes, 0, shapes, next, typeShapes.length);
+            next += typeShapes.length;
+        }
+        return shapes;
+    }
+
+    int size() {
+        return sphereShapes.length + cubeShapes.length + planeShapes.length + others.length;
+    }
+
+    /**
+     * Intersects the shapes of this group with the ray of {@code Query} query,
+     * recording a closer hit in it
+     *
+     * @param query {@code Query} ray and closest hit so far
+     */
+    void intersect(Query query) {
+        Shape ignore = query.ignore;
+        for (int i = 0; i < sphereShapes.length; i++) {
+            if (sphereShapes[i] != ignore)
+                query.accept(sphereShapes[i], intersectSphere(i, query, query.closest));
+        }
+        for (int i = 0; i < cubeShapes.length; i++) {
+            if (cubeShapes[i] != ignore)
+                query.accept(cubeShapes[i], intersectCube(i, query, query.closest));
+        }
+        for (int i = 0; i < planeShapes.length; i++) {
+            if (planeShapes[i] != ignore)
+                query.accept(planeShapes[i], intersectPlane(i, query, query.closest));
+        }
+        for (int i = 0; i < others.length; i++) {
+            if (others[i] != ignore)
+                query.accept(others[i], others[i].intersect(query.ray, query.tMin, query.closest));
+        }
+    }
+
+    /**
+     * Finds any shape of this group other than hint that blocks the ray of
+     * {@code Query} query within [tMin, closest]
+     *
+     * @param query {@code Query} ray and interval
+     * @param hint  {@code Shape} already tested, may be {@code null}
+     * @return blocking {@code Shape}, {@code null} if there is none
+     */
+    Shape findOccluder(Query query, Shape hint) {
+        Shape ignore = query.ignore;
+        double tMax = query.closest;
+        for (int i = 0; i < sphereShapes.length; i++) {
+            Shape shape = sphereShapes[i];
+            if (shape != ignore && shape != hint && intersectSphere(i, query, tMax) != Shape.NO_HIT)
+                return shape;
+        }
+        for (int i = 0; i < cubeShapes.length; i++) {
+            Shape shape = cubeShapes[i];
+            if (shape != ignore && shape != hint && intersectCube(i, query, tMax) != Shape.NO_HIT)
+                return shape;
+        }
+        for (int i = 0; i < planeShapes.length; i++) {
+            Shape shape = planeShapes[i];
+            if (shape != ignore && shape != hint && intersectPlane(i, query, tMax) != Shape.NO_HIT)
+                return shape;
+        }
+        for (int i = 0; i < others.length; i++) {
+            Shape shape = others[i];
+            if (shape != ignore && shape != hint && shape.intersect(query.ray, query.tMin, tMax) != Shape.NO_HIT)
+                return shape;
+        }
+        return null;
+    }
+
+    /**
+     * Intersects the shapes of this group with all rays of {@code RayPacket}
+     * packet through {@code PacketKernel} kernel, committing the hits to the
+     * packet
+     *
+     * @param packet {@code RayPacket} to be checked
+     * @param kernel {@code PacketKernel} to be used
+     */
+    void intersect(RayPacket packet, PacketKernel kernel) {
+        Shape ignore = packet.getIgnore();
+        for (int i = 0; i < sphereShapes.length; i++) {
+            if (sphereShapes[i] == ignore)
+                continue;
+            int s = i * SPHERE_STRIDE;
+            kernel.intersectSphere(packet, spheres[s], spheres[s + 1], spheres[s + 2], spheres[s + 3]);
+            packet.commit(sphereShapes[i]);
+        }
+        for (int i = 0; i < cubeShapes.length; i++) {
+            if (cubeShapes[i] == ignore)
+                continue;
+            int c = i * CUBE_STRIDE;
+            kernel.intersectCube(packet, cubes[c], cubes[c + 1], cubes[c + 2], cubes[c + 3]);
+            packet.commit(cubeShapes[i]);
+        }
+        for (int i = 0; i < planeShapes.length; i++) {
+            if (planeShapes[i] == ignore)
+                continue;
+            int p = i * PLANE_STRIDE;
+            kernel.intersectPlane(packet, planes[p], planes[p + 1], planes[p + 2], planes[p + 3], planes[p + 4],
+                    planes[p + 5]);
+            packet.commit(planeShapes[i]);
+        }
+        for (int i = 0; i < others.length; i++) {
+            if (others[i] == ignore)
+                continue;
+            others[i].intersect(packet, kernel);
+            packet.commit(others[i]);
+        }
+    }
+
+    // The following repeat Sphere, Cube and Plane.intersect operation for
+    // operation, so that they find exactly the same distances
+
+    private double intersectSphere(int index, Query query, double tMax) {
+        int s = index * SPHERE_STRIDE;
+        double radius = spheres[s + 3];
+        double ocx = query.ox - spheres[s];
+        double ocy = query.oy - spheres[s + 1];
+        double ocz = query.oz - spheres[s + 2];
+        double dx = query.dx, dy = query.dy, dz = query.dz;
+        double a = dx * dx + dy * dy + dz * dz;
+        double b = 2.0 * (ocx * dx + ocy * dy + ocz * dz);
+        double c = (ocx * ocx + ocy * ocy + ocz * ocz) - radius * radius;
+
+        double discriminant = b * b - 4 * a * c;
+        if (discriminant < 0)
+            return Shape.NO_HIT;
+        double root = Math.sqrt(discriminant);
+        double t = (-b - root) / (2.0 * a);
+        if (t >= query.tMin && t <= tMax)
+            return t;
+        t = (-b + root) / (2.0 * a);
+        if (t >= query.tMin && t <= tMax)
+            return t;
+        return Shape.NO_HIT;
+    }
+
+    private double intersectCube(int index, Query query, double tMax) {
+        int c = index * CUBE_STRIDE;
+        double half = cubes[c + 3];
+        double tMin = query.tMin;
+        double tNear = Double.NEGATIVE_INFINITY;
+        double tFar = Double.POSITIVE_INFINITY;
+
+        if (Math.abs(query.dx) < 1e-6) {
+            if (query.ox < cubes[c] - half || query.ox > cubes[c] + half)
+                return Shape.NO_HIT;
+        }
+        else {
+            double t1 = (cubes[c] - half - query.ox) / query.dx;
+            double t2 = (cubes[c] + half - query.ox) / query.dx;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        if (Math.abs(query.dy) < 1e-6) {
+            if (query.oy < cubes[c + 1] - half || query.oy > cubes[c + 1] + half)
+                return Shape.NO_HIT;
+        }
+        else {
+            double t1 = (cubes[c + 1] - half - query.oy) / query.dy;
+            double t2 = (cubes[c + 1] + half - query.oy) / query.dy;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+        if (Math.abs(query.dz) < 1e-6) {
+            if (query.oz < cubes[c + 2] - half || query.oz > cubes[c + 2] + half)
+                return Shape.NO_HIT;
+        }
+        else {
+            double t1 = (cubes[c + 2] - half - query.oz) / query.dz;
+            double t2 = (cubes[c + 2] + half - query.oz) / query.dz;
+            tNear = Math.max(tNear, Math.min(t1, t2));
+            tFar = Math.min(tFar, Math.max(t1, t2));
+        }
+
+        // The slab interval only shrinks, so testing it once after all axes
+        // rejects the same rays as the per-axis test of Cube.intersect
+        if (tNear > tFar || tFar < tMin || tNear > tMax)
+            return Shape.NO_HIT;
+        if (tNear >= tMin)
+            return tNear;
+        if (tFar <= tMax)
+            return tFar;
+        return Shape.NO_HIT;
+    }
+
+    private double intersectPlane(int index, Query query, double tMax) {
+        int p = index * PLANE_STRIDE;
+        double nx = planes[p + 3], ny = planes[p + 4], nz = planes[p + 5];
+        double denominator = query.dx * nx + query.dy * ny + query.dz * nz;
+        if (Math.abs(denominator) < 1e-6)
+            return Shape.NO_HIT;
+
+        double numerator = (planes[p] - query.ox) * nx + (planes[p + 1] - query.oy) * ny
+                + (planes[p + 2] - query.oz) * nz;
+        double t = numerator / denominator;
+        if (t < query.tMin || t > tMax)
+            return Shape.NO_HIT;
+        return t;
+    }
+
+    /**
+     * Ray of one traversal and the closest hit found so far, reused by a thread
+     * for one traversal after the other
+     */
+    static final class Query {
+
+        Ray ray;
+        Shape ignore;
+        double ox, oy, oz;
+        double dx, dy, dz;
+        double tMin;
+        /** Distance of the closest hit so far, the upper end of the interval */
+        double closest;
+        Shape closestShape;
+
+        void set(Ray ray, double tMin, double tMax) {
+            Vector3 origin = ray.getOrigin();
+            Vector3 direction = ray.getDirection();
+            this.ray = ray;
+            this.ignore = ray.getIgnore();
+            this.ox = origin.x;
+            this.oy = origin.y;
+            this.oz = origin.z;
+            this.dx = direction.x;
+            this.dy = direction.y;
+            this.dz = direction.z;
+            this.tMin = tMin;
+            this.closest = tMax;
+            this.closestShape = null;
+        }
+
+        void accept(Shape shape, double t) {
+            if (t != Shape.NO_HIT && (closestShape == null || t < closest)) {
+                closestShape = shape;
+                closest = t;
+            }
+        }
+
+        void clear() {
+            ray = null;
+            ignore = null;
+            closestShape = null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package gameboy.utilities.data;
+
+/**
+ * Operators mapping linear intensities of a {@link PixelBuffer} to 8 bit
+ * channel values
+ */
+public enum Tonemap {
+
+    /** Clips at full intensity, the look of shading with clamped colors */
+    CLAMP {
+        @Override
+        public float map(float value) {
+            return value;
+        }
+    },
+    /** Reinhard's x / (1 + x), compresses bright values instead of clipping them */
+    REINHARD {
+        @Override
+        public float map(float value) {
+            return value / (1 + value);
+        }
+    };
+
+    /**
+     * Maps {@code float} value to the displayable range, where 1 is full
+     * intensity
+     *
+     * @param value {@code float} linear intensity, not negative
+     * @return {@code float} mapped intensity
+     */
+    public abstract float map(float value);
+
+    /**
+     * Maps {@code float} value and quantizes it to 0 to 255
+     *
+     * @param value {@code float} linear intensity
+     * @return {@code int} channel value
+     */
+    public int quantize(float value) {
+        return (int) Math.min(255, Math.max(0, map(Math.max(0, value)) * 255));
+    }
+}
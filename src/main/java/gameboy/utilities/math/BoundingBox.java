@@ -0,0 +1,41 @@
+package gameboy.utilities.math;
+
+public class BoundingBox {
+    private Vector3 min;
+    private Vector3 max;
+
+    public BoundingBox(Vector3 min, Vector3 max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    public Vector3 getMin() {
+        return min;
+    }
+
+    public Vector3 getMax() {
+        return max;
+    }
+
+    public Vector3 getCenter() {
+        return min.add(max).scale(0.5);
+    }
+
+    public BoundingBox union(BoundingBox other) {
+        return new BoundingBox(
+                new Vector3(Math.min(min.x, other.min.x), Math.min(min.y, other.min.y), Math.min(min.z, other.min.z)),
+                new Vector3(Math.max(max.x, other.max.x), Math.max(max.y, other.max.y), Math.max(max.z, other.max.z)));
+    }
+
+    public double surfaceArea() {
+        double dx = max.x - min.x;
+        double dy = max.y - min.y;
+        double dz = max.z - min.z;
+        return 2 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    @Override
+    public String toString() {
+        return min.toString() + " - " + max.toString();
+    }
+}
@@ -0,0 +1,39 @@
+package gameboy.utilities.math;
+
+/**
+ * Intersects every ray of a {@link RayPacket} with one primitive, writing each
+ * distance within [tMin, t[i]] to {@link RayPacket#getCandidates()}, or
+ * {@code Shape.NO_HIT} if there is none. Implementations have to give exactly
+ * the result of the matching {@code Shape.intersect}, so that images do not
+ * depend on the kernel in use
+ */
+public interface PacketKernel {
+
+    void intersectSphere(RayPacket packet, double cx, double cy, double cz, double radius);
+
+    void intersectPlane(RayPacket packet, double px, double py, double pz, double nx, double ny, double nz);
+
+    void intersectCube(RayPacket packet, double cx, double cy, double cz, double halfSideLength);
+
+    /**
+     * Gets the fastest {@code PacketKernel} available, the Vector API kernel if
+     * the {@code jdk.incubator.vector} module is present (Java 17 or newer, with
+     * {@code --add-modules jdk.incubator.vector}), otherwise the scalar one
+     * 
+     * @return shared {@code PacketKernel}
+     */
+    static PacketKernel getDefault() {
+        PacketKernel vector = getVectorKernel();
+        return vector != null ? vector : ScalarPacketKernel.INSTANCE;
+    }
+
+    /**
+     * Gets the Vector API {@code PacketKernel}
+     * 
+     * @return shared {@code PacketKernel}, {@code null} if the Vector API is not
+     *         available
+     */
+    static PacketKernel getVectorKernel() {
+        return ScalarPacketKernel.VECTOR;
+    }
+}
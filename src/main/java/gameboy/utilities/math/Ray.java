@@ -3,16 +3,65 @@ package gameboy.utilities.math;
 import java.util.List;
 
 import gameboy.utilities.Shape;
+import gameboy.utilities.data.BVH;
 
 public class Ray {
     private Vector3 origin;
     private Vector3 direction;
+    private Shape ignore;
 
     public Ray(Vector3 origin, Vector3 direction) {
         this.origin = origin;
         this.direction = direction.normalize();
     }
 
+    /**
+     * Creates a {@code Ray} that never hits {@code Shape} ignore, used for
+     * secondary rays leaving a surface so they do not hit it again
+     * 
+     * @param ignore {@code Shape} excluded from intersection, may be {@code null}
+     */
+    public Ray(Vector3 origin, Vector3 direction, Shape ignore) {
+        this(origin, direction);
+        this.ignore = ignore;
+    }
+
+    private Ray() {
+    }
+
+    /**
+     * Creates a {@code Ray} with a direction that is normalized already, which is
+     * kept as it is, since normalizing it again can change its last bits
+     * 
+     * @param direction {@code Vector3} unit direction
+     * @param ignore    {@code Shape} excluded from intersection, may be
+     *                  {@code null}
+     */
+    static Ray normalized(Vector3 origin, Vector3 direction, Shape ignore) {
+        Ray ray = new Ray();
+        ray.origin = origin;
+        ray.direction = direction;
+        ray.ignore = ignore;
+        return ray;
+    }
+
+    /**
+     * Moves this {@code Ray} to start at x, y, z along direction, which is copied
+     * and normalized like by the constructor. Lets one {@code Ray} be reused for
+     * rays that never end up in a {@code RayHit}, such as shadow rays
+     * 
+     * @param direction {@code Vector3} direction, left unchanged
+     * @param ignore    {@code Shape} excluded from intersection, may be
+     *                  {@code null}
+     * @return this {@code Ray}
+     */
+    public Ray set(double x, double y, double z, Vector3 direction, Shape ignore) {
+        this.origin.set(x, y, z);
+        this.direction.set(direction).normalizeLocal();
+        this.ignore = ignore;
+        return this;
+    }
+
     public Vector3 getOrigin() {
         return origin;
     }
@@ -21,25 +70,46 @@ public class Ray {
         return direction;
     }
 
+    public Shape getIgnore() {
+        return ignore;
+    }
+
     @Override
     public String toString() {
         return origin.toString() + " | " + direction.toString();
     }
 
+    public Vector3 getPoint(double t) {
+        return new Vector3(origin.x + direction.x * t, origin.y + direction.y * t, origin.z + direction.z * t);
+    }
+
     public Vector3 intersection(Ray other) {
+        double t = intersectionDistance(other);
+        if (t == Shape.NO_HIT)
+            return null;
+        return getPoint(t);
+    }
+
+    /**
+     * Gets {@code double} distance along this {@code Ray} to its intersection
+     * with {@code Ray} other, see {@link #intersection(Ray)}
+     * 
+     * @return {@code double} distance, {@code Shape.NO_HIT} if there is none
+     */
+    public double intersectionDistance(Ray other) {
         Vector3 crossDir = this.direction.cross(other.direction);
         Vector3 dist = other.origin.subtract(this.origin);
 
         if (crossDir.magnitude() < 1e-6) {
-            return null;
+            return Shape.NO_HIT;
         }
 
         double t = dist.dot(crossDir) / crossDir.dot(crossDir);
         double u = dist.dot(crossDir) / crossDir.dot(crossDir);
 
         if (t >= 0 && u >= 0 && u <= 1)
-            return this.origin.add(this.direction.scale(t));
-        return null;
+            return t;
+        return Shape.NO_HIT;
     }
 
     public Vector3 intersectionPoint(Vector3 point) {
@@ -79,19 +149,39 @@ public class Ray {
     }
 
     public RayHit cast(List<Shape> objects) {
-        RayHit hit = null;
+        return cast(objects, 0, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds the closest {@code RayHit} with any {@code Shape} of objects within
+     * [tMin, tMax]. The interval shrinks to the closest hit found so far, so
+     * farther candidates are rejected inside {@link Shape#intersect}
+     * 
+     * @param objects {@code List<Shape>} to be tested
+     * @param tMin    {@code double} smallest accepted distance
+     * @param tMax    {@code double} largest accepted distance
+     * @return closest {@code RayHit}, {@code null} if nothing was hit
+     */
+    public RayHit cast(List<Shape> objects, double tMin, double tMax) {
+        Shape closestShape = null;
+        double closest = tMax;
         for (Shape shape : objects) {
-            Vector3 hitPoint = shape.getIntersectionPoint(this);
-            if (hitPoint != null) {
-                RayHit hit2 = new RayHit(this, shape, hitPoint);
-                if (hit == null) {
-                    hit = hit2;
-                }
-                else if (getOrigin().distance(hit.getHitPoint()) > getOrigin().distance(hitPoint)) {
-                    hit = hit2;
-                }
+            if (shape == ignore)
+                continue;
+            double t = shape.intersect(this, tMin, closest);
+            if (t != Shape.NO_HIT && (closestShape == null || t < closest)) {
+                closestShape = shape;
+                closest = t;
             }
         }
-        return hit;
+        return closestShape == null ? null : new RayHit(this, closestShape, closest);
+    }
+
+    public RayHit cast(BVH bvh) {
+        return bvh.cast(this, 0, Double.POSITIVE_INFINITY);
+    }
+
+    public RayHit cast(BVH bvh, double tMin, double tMax) {
+        return bvh.cast(this, tMin, tMax);
     }
 }
@@ -6,11 +6,35 @@ public class RayHit {
     private Ray ray;
     private Shape shape;
     private Vector3 hitPoint;
+    private double distance;
+    private Vector3 normal;
 
     public RayHit(Ray ray, Shape shape, Vector3 hitPoint) {
         this.ray = ray;
         this.shape = shape;
         this.hitPoint = hitPoint;
+        this.distance = ray.getOrigin().distance(hitPoint);
+    }
+
+    public RayHit(Ray ray, Shape shape, double distance) {
+        this.ray = ray;
+        this.shape = shape;
+        this.hitPoint = ray.getPoint(distance);
+        this.distance = distance;
+    }
+
+    /**
+     * Creates a {@code RayHit} whose hit point and surface normal are already
+     * known, e.g. read back from a {@code GBuffer}
+     * 
+     * @param normal {@code Vector3} surface normal of shape at hitPoint
+     */
+    public RayHit(Ray ray, Shape shape, Vector3 hitPoint, double distance, Vector3 normal) {
+        this.ray = ray;
+        this.shape = shape;
+        this.hitPoint = hitPoint;
+        this.distance = distance;
+        this.normal = normal;
     }
 
     public Ray getRay() {
@@ -25,6 +49,27 @@ public class RayHit {
         return hitPoint;
     }
 
+    /**
+     * Gets {@code double} distance t along the {@code Ray} to the hit point
+     * 
+     * @return {@code double} distance
+     */
+    public double getDistance() {
+        return distance;
+    }
+
+    /**
+     * Gets the surface normal of the {@code Shape} at the hit point, computed on
+     * the first call
+     * 
+     * @return {@code Vector3} surface normal
+     */
+    public Vector3 getNormal() {
+        if (normal == null)
+            normal = shape.getNormal(hitPoint);
+        return normal;
+    }
+
     @Override
     public String toString() {
         return super.toString() + ":\n" + ray.toString() + "\n" + shape.toString() + "\n" + hitPoint.toString();
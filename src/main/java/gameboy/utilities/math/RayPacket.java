@@ -0,0 +1,171 @@
+package gameboy.utilities.math;
+
+import java.util.Arrays;
+
+import gameboy.utilities.Shape;
+
+/**
+ * Group of rays traced together, stored as one array per component so that a
+ * {@link PacketKernel} can intersect several of them with one instruction. All
+ * rays of a packet share [tMin, tMax] and the ignored {@code Shape}
+ */
+public class RayPacket {
+
+    private static final int LANE_PADDING = 8;
+
+    private final Ray[] rays;
+    public final double[] ox, oy, oz;
+    public final double[] dx, dy, dz;
+    public final double[] ix, iy, iz;
+    /** Distance of the closest hit of each ray so far, the upper end of its interval */
+    public final double[] t;
+    private final Shape[] hits;
+    private final double[] candidates;
+    private int size;
+    private double tMin;
+    private Shape ignore;
+
+    public RayPacket(int capacity) {
+        // Component arrays are padded to whole vectors so that kernels can skip
+        // masking, lanes past size() hold stale values and are never committed
+        int length = (capacity + LANE_PADDING - 1) / LANE_PADDING * LANE_PADDING;
+        rays = new Ray[capacity];
+        ox = new double[length];
+        oy = new double[length];
+        oz = new double[length];
+        dx = new double[length];
+        dy = new double[length];
+        dz = new double[length];
+        ix = new double[length];
+        iy = new double[length];
+        iz = new double[length];
+        t = new double[length];
+        hits = new Shape[capacity];
+        candidates = new double[length];
+    }
+
+    /**
+     * Empties this {@code RayPacket} for rays cast within [tMin, tMax]
+     * 
+     * @param tMin {@code double} smallest accepted distance
+     * @param tMax {@code double} largest accepted distance
+     */
+    public void reset(double tMin, double tMax) {
+        Arrays.fill(rays, 0, size, null);
+        Arrays.fill(hits, 0, size, null);
+        Arrays.fill(t, tMax);
+        this.size = 0;
+        this.tMin = tMin;
+        this.ignore = null;
+    }
+
+    /**
+     * Adds {@code Ray} ray, the ignored {@code Shape} of the first ray added is
+     * used for all of them
+     * 
+     * @param ray {@code Ray} to be traced
+     * @return {@code int} index of ray in this packet
+     */
+    public int add(Ray ray) {
+        int i = size++;
+        if (i == 0)
+            ignore = ray.getIgnore();
+        Vector3 origin = ray.getOrigin();
+        Vector3 direction = ray.getDirection();
+        rays[i] = ray;
+        ox[i] = origin.x;
+        oy[i] = origin.y;
+        oz[i] = origin.z;
+        dx[i] = direction.x;
+        dy[i] = direction.y;
+        dz[i] = direction.z;
+        ix[i] = 1 / direction.x;
+        iy[i] = 1 / direction.y;
+        iz[i] = 1 / direction.z;
+        return i;
+    }
+
+    /**
+     * Adds the ray from originX, originY, originZ along the unit direction
+     * directionX, directionY, directionZ, without a {@code Ray} object, which is
+     * only created once {@link #getRay(int)} or {@link #getHit(int)} need it
+     * 
+     * @return {@code int} index of the ray in this packet
+     */
+    public int add(double originX, double originY, double originZ, double directionX, double directionY,
+            double directionZ) {
+        int i = size++;
+        if (i == 0)
+            ignore = null;
+        ox[i] = originX;
+        oy[i] = originY;
+        oz[i] = originZ;
+        dx[i] = directionX;
+        dy[i] = directionY;
+        dz[i] = directionZ;
+        ix[i] = 1 / directionX;
+        iy[i] = 1 / directionY;
+        iz[i] = 1 / directionZ;
+        return i;
+    }
+
+    /**
+     * Records candidate distances to {@code Shape} shape from
+     * {@link #getCandidates()}, keeping the closer hit for each ray like
+     * {@link Ray#cast(java.util.List, double, double)}
+     * 
+     * @param shape {@code Shape} the candidates belong to
+     */
+    public void commit(Shape shape) {
+        for (int i = 0; i < size; i++) {
+            double candidate = candidates[i];
+            if (candidate != Shape.NO_HIT && (hits[i] == null || candidate < t[i])) {
+                hits[i] = shape;
+                t[i] = candidate;
+            }
+        }
+    }
+
+    /**
+     * Gets {@code double[]} scratch array a {@link PacketKernel} writes candidate
+     * distances to, {@code Shape.NO_HIT} for rays missing the {@code Shape}
+     * 
+     * @return {@code double[]} candidates, one per ray
+     */
+    public double[] getCandidates() {
+        return candidates;
+    }
+
+    /**
+     * Gets the closest {@code RayHit} of the ray at index
+     * 
+     * @param index {@code int} index of the ray
+     * @return {@code RayHit}, {@code null} if the ray hit nothing
+     */
+    public RayHit getHit(int index) {
+        return hits[index] == null ? null : new RayHit(getRay(index), hits[index], t[index]);
+    }
+
+    public Ray getRay(int index) {
+        if (rays[index] == null)
+            rays[index] = Ray.normalized(new Vector3(ox[index], oy[index], oz[index]),
+                    new Vector3(dx[index], dy[index], dz[index]), ignore);
+        return rays[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return rays.length;
+    }
+
+    public double getTMin() {
+        return tMin;
+    }
+
+    public Shape getIgnore() {
+        return ignore;
+    }
+}
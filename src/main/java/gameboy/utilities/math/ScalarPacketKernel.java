@@ -0,0 +1,120 @@
+package gameboy.utilities.math;
+
+import gameboy.utilities.Shape;
+
+/**
+ * {@link PacketKernel} that loops over the rays of a packet one at a time
+ */
+public class ScalarPacketKernel implements PacketKernel {
+
+    public static final ScalarPacketKernel INSTANCE = new ScalarPacketKernel();
+
+    static final PacketKernel VECTOR = loadVectorKernel();
+
+    private static PacketKernel loadVectorKernel() {
+        try {
+            // Only present in the Java 17 part of the multi-release jar
+            ModuleLayer.boot().findModule("jdk.incubator.vector")
+                    .ifPresent(ScalarPacketKernel.class.getModule()::addReads);
+            return (PacketKernel) Class.forName("gameboy.utilities.math.VectorPacketKernel").getDeclaredConstructor()
+                    .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void intersectSphere(RayPacket packet, double cx, double cy, double cz, double radius) {
+        double[] out = packet.getCandidates();
+        double tMin = packet.getTMin();
+        for (int i = 0; i < packet.size(); i++) {
+            double ocx = packet.ox[i] - cx;
+            double ocy = packet.oy[i] - cy;
+            double ocz = packet.oz[i] - cz;
+            double dx = packet.dx[i], dy = packet.dy[i], dz = packet.dz[i];
+            double a = dx * dx + dy * dy + dz * dz;
+            double b = 2.0 * (ocx * dx + ocy * dy + ocz * dz);
+            double c = (ocx * ocx + ocy * ocy + ocz * ocz) - radius * radius;
+
+            double discriminant = b * b - 4 * a * c;
+            out[i] = Shape.NO_HIT;
+            if (discriminant < 0)
+                continue;
+            double root = Math.sqrt(discriminant);
+            double t = (-b - root) / (2.0 * a);
+            if (t >= tMin && t <= packet.t[i]) {
+                out[i] = t;
+                continue;
+            }
+            t = (-b + root) / (2.0 * a);
+            if (t >= tMin && t <= packet.t[i])
+                out[i] = t;
+        }
+    }
+
+    @Override
+    public void intersectPlane(RayPacket packet, double px, double py, double pz, double nx, double ny, double nz) {
+        double[] out = packet.getCandidates();
+        double tMin = packet.getTMin();
+        for (int i = 0; i < packet.size(); i++) {
+            double denominator = packet.dx[i] * nx + packet.dy[i] * ny + packet.dz[i] * nz;
+            double numerator = (px - packet.ox[i]) * nx + (py - packet.oy[i]) * ny + (pz - packet.oz[i]) * nz;
+            double t = numerator / denominator;
+            out[i] = Math.abs(denominator) < 1e-6 || t < tMin || t > packet.t[i] ? Shape.NO_HIT : t;
+        }
+    }
+
+    @Override
+    public void intersectCube(RayPacket packet, double cx, double cy, double cz, double halfSideLength) {
+        double[] out = packet.getCandidates();
+        double tMin = packet.getTMin();
+        for (int i = 0; i < packet.size(); i++) {
+            double tMax = packet.t[i];
+            double tNear = Double.NEGATIVE_INFINITY;
+            double tFar = Double.POSITIVE_INFINITY;
+            boolean miss = false;
+
+            double d = packet.dx[i];
+            if (Math.abs(d) < 1e-6) {
+                miss |= packet.ox[i] < cx - halfSideLength || packet.ox[i] > cx + halfSideLength;
+            }
+            else {
+                double t1 = (cx - halfSideLength - packet.ox[i]) / d;
+                double t2 = (cx + halfSideLength - packet.ox[i]) / d;
+                tNear = Math.max(tNear, Math.min(t1, t2));
+                tFar = Math.min(tFar, Math.max(t1, t2));
+            }
+            d = packet.dy[i];
+            if (Math.abs(d) < 1e-6) {
+                miss |= packet.oy[i] < cy - halfSideLength || packet.oy[i] > cy + halfSideLength;
+            }
+            else {
+                double t1 = (cy - halfSideLength - packet.oy[i]) / d;
+                double t2 = (cy + halfSideLength - packet.oy[i]) / d;
+                tNear = Math.max(tNear, Math.min(t1, t2));
+                tFar = Math.min(tFar, Math.max(t1, t2));
+            }
+            d = packet.dz[i];
+            if (Math.abs(d) < 1e-6) {
+                miss |= packet.oz[i] < cz - halfSideLength || packet.oz[i] > cz + halfSideLength;
+            }
+            else {
+                double t1 = (cz - halfSideLength - packet.oz[i]) / d;
+                double t2 = (cz + halfSideLength - packet.oz[i]) / d;
+                tNear = Math.max(tNear, Math.min(t1, t2));
+                tFar = Math.min(tFar, Math.max(t1, t2));
+            }
+
+            // The slab interval only shrinks, so testing it once after all axes
+            // rejects the same rays as the per-axis test of Cube.intersect
+            if (miss || tNear > tFar || tFar < tMin || tNear > tMax)
+                out[i] = Shape.NO_HIT;
+            else if (tNear >= tMin)
+                out[i] = tNear;
+            else if (tFar <= tMax)
+                out[i] = tFar;
+            else
+                out[i] = Shape.NO_HIT;
+        }
+    }
+}
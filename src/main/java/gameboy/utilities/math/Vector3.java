@@ -10,19 +10,36 @@ public class Vector3 {
     }
 
     public Vector3 rotate(double pitch, double yaw) {
+        return rotate(pitch, yaw, new Vector3(0, 0, 0));
+    }
 
-        double rotatedY = (double) (y * Math.cos(pitch) - z * Math.sin(pitch));
-        double rotatedZ = (double) (y * Math.sin(pitch) + z * Math.cos(pitch));
-        double rotatedX = (double) (x * Math.cos(yaw) + rotatedZ * Math.sin(yaw));
+    /**
+     * Rotates this {@code Vector3} like {@link #rotate(double, double)} and writes
+     * the result into {@code Vector3} out instead of allocating
+     * 
+     * @param out {@code Vector3} receiving the result, may be {@code this}
+     * @return {@code Vector3} out
+     */
+    public Vector3 rotate(double pitch, double yaw, Vector3 out) {
+        double cosPitch = Math.cos(pitch), sinPitch = Math.sin(pitch);
+        double cosYaw = Math.cos(yaw), sinYaw = Math.sin(yaw);
 
-        rotatedZ = (double) (-x * Math.sin(yaw) + rotatedZ * Math.cos(yaw));
+        double rotatedY = y * cosPitch - z * sinPitch;
+        double rotatedZ = y * sinPitch + z * cosPitch;
+        double rotatedX = x * cosYaw + rotatedZ * sinYaw;
 
-        return new Vector3(rotatedX, rotatedY, rotatedZ);
+        return out.set(rotatedX, rotatedY, -x * sinYaw + rotatedZ * cosYaw);
     }
 
     public double distance(Vector3 other) {
-        Vector3 difference = this.subtract(other);
-        return (double) Math.sqrt(Math.pow(difference.x, 2) + Math.pow(difference.y, 2) + Math.pow(difference.z, 2));
+        return Math.sqrt(distanceSquared(other));
+    }
+
+    public double distanceSquared(Vector3 other) {
+        double dx = x - other.x;
+        double dy = y - other.y;
+        double dz = z - other.z;
+        return dx * dx + dy * dy + dz * dz;
     }
 
     public Vector3 add(Vector3 other) {
@@ -62,6 +79,54 @@ public class Vector3 {
         return this.x * other.x + this.y * other.y + this.z * other.z;
     }
 
+    public static double dot(double ax, double ay, double az, double bx, double by, double bz) {
+        return ax * bx + ay * by + az * bz;
+    }
+
+    /**
+     * Gets component of this {@code Vector3} by index, without allocating like
+     * {@link #toArray()}
+     * 
+     * @param axis {@code int} 0 for x, 1 for y, 2 for z
+     * @return {@code double} component
+     */
+    public double get(int axis) {
+        return axis == 0 ? x : axis == 1 ? y : z;
+    }
+
+    public Vector3 set(double x, double y, double z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    public Vector3 set(Vector3 other) {
+        return set(other.x, other.y, other.z);
+    }
+
+    public Vector3 addLocal(Vector3 other) {
+        return set(x + other.x, y + other.y, z + other.z);
+    }
+
+    public Vector3 subtractLocal(Vector3 other) {
+        return set(x - other.x, y - other.y, z - other.z);
+    }
+
+    public Vector3 scaleLocal(double scalar) {
+        return set(x * scalar, y * scalar, z * scalar);
+    }
+
+    public Vector3 normalizeLocal() {
+        double magnitude = magnitude();
+        return set(x / magnitude, y / magnitude, z / magnitude);
+    }
+
+    public Vector3 crossLocal(Vector3 other) {
+        return set(this.y * other.z - this.z * other.y, this.z * other.x - this.x * other.z,
+                this.x * other.y - this.y * other.x);
+    }
+
     public double[] toArray() {
         return new double[] {
                 x, y, z
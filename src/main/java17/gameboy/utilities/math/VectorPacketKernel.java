@@ -0,0 +1,141 @@
+package gameboy.utilities.math;
+
+import gameboy.utilities.Shape;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link PacketKernel} on the incubating Vector API, intersecting as many rays
+ * per instruction as the preferred {@code DoubleVector} holds. It repeats the
+ * scalar arithmetic operation for operation, so it finds exactly the same
+ * distances. Loaded by {@link PacketKernel#getVectorKernel()} when running on
+ * Java 17 or newer with {@code --add-modules jdk.incubator.vector}
+ */
+public class VectorPacketKernel implements PacketKernel {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public void intersectSphere(RayPacket packet, double cx, double cy, double cz, double radius) {
+        double[] out = packet.getCandidates();
+        double tMin = packet.getTMin();
+        double radiusSquared = radius * radius;
+        for (int i = 0; i < packet.size(); i += SPECIES.length()) {
+            VectorMask<Double> lanes = SPECIES.indexInRange(i, packet.size());
+            DoubleVector dx = load(packet.dx, i, lanes);
+            DoubleVector dy = load(packet.dy, i, lanes);
+            DoubleVector dz = load(packet.dz, i, lanes);
+            DoubleVector ocx = load(packet.ox, i, lanes).sub(cx);
+            DoubleVector ocy = load(packet.oy, i, lanes).sub(cy);
+            DoubleVector ocz = load(packet.oz, i, lanes).sub(cz);
+            DoubleVector tMax = load(packet.t, i, lanes);
+
+            DoubleVector a = dx.mul(dx).add(dy.mul(dy)).add(dz.mul(dz));
+            DoubleVector b = ocx.mul(dx).add(ocy.mul(dy)).add(ocz.mul(dz)).mul(2.0);
+            DoubleVector c = ocx.mul(ocx).add(ocy.mul(ocy)).add(ocz.mul(ocz)).sub(radiusSquared);
+
+            DoubleVector discriminant = b.mul(b).sub(a.mul(4).mul(c));
+            VectorMask<Double> hit = discriminant.compare(VectorOperators.GE, 0.0);
+            DoubleVector root = discriminant.sqrt();
+            // (-b - root) / 2a and (-b + root) / 2a without negating b
+            DoubleVector near = b.add(root).div(a.mul(-2.0));
+            DoubleVector far = root.sub(b).div(a.mul(2.0));
+
+            VectorMask<Double> nearHit = hit.and(within(near, tMin, tMax));
+            VectorMask<Double> farHit = hit.and(within(far, tMin, tMax));
+            DoubleVector result = DoubleVector.broadcast(SPECIES, Shape.NO_HIT).blend(far, farHit).blend(near, nearHit);
+            store(result, out, i, lanes);
+        }
+    }
+
+    @Override
+    public void intersectPlane(RayPacket packet, double px, double py, double pz, double nx, double ny, double nz) {
+        double[] out = packet.getCandidates();
+        double tMin = packet.getTMin();
+        for (int i = 0; i < packet.size(); i += SPECIES.length()) {
+            VectorMask<Double> lanes = SPECIES.indexInRange(i, packet.size());
+            DoubleVector dx = load(packet.dx, i, lanes);
+            DoubleVector dy = load(packet.dy, i, lanes);
+            DoubleVector dz = load(packet.dz, i, lanes);
+            DoubleVector tMax = load(packet.t, i, lanes);
+
+            DoubleVector denominator = dx.mul(nx).add(dy.mul(ny)).add(dz.mul(nz));
+            DoubleVector numerator = DoubleVector.broadcast(SPECIES, px).sub(load(packet.ox, i, lanes)).mul(nx)
+                    .add(DoubleVector.broadcast(SPECIES, py).sub(load(packet.oy, i, lanes)).mul(ny))
+                    .add(DoubleVector.broadcast(SPECIES, pz).sub(load(packet.oz, i, lanes)).mul(nz));
+            DoubleVector t = numerator.div(denominator);
+
+            VectorMask<Double> hit = denominator.abs().compare(VectorOperators.GE, 1e-6).and(within(t, tMin, tMax));
+            store(DoubleVector.broadcast(SPECIES, Shape.NO_HIT).blend(t, hit), out, i, lanes);
+        }
+    }
+
+    @Override
+    public void intersectCube(RayPacket packet, double cx, double cy, double cz, double halfSideLength) {
+        double[] out = packet.getCandidates();
+        double tMin = packet.getTMin();
+        double[][] origins = {
+                packet.ox, packet.oy, packet.oz
+        };
+        double[][] directions = {
+                packet.dx, packet.dy, packet.dz
+        };
+        double[] centers = {
+                cx, cy, cz
+        };
+        for (int i = 0; i < packet.size(); i += SPECIES.length()) {
+            VectorMask<Double> lanes = SPECIES.indexInRange(i, packet.size());
+            DoubleVector tMax = load(packet.t, i, lanes);
+            DoubleVector tNear = DoubleVector.broadcast(SPECIES, Double.NEGATIVE_INFINITY);
+            DoubleVector tFar = DoubleVector.broadcast(SPECIES, Double.POSITIVE_INFINITY);
+            VectorMask<Double> miss = SPECIES.maskAll(false);
+
+            for (int axis = 0; axis < 3; axis++) {
+                DoubleVector o = load(origins[axis], i, lanes);
+                DoubleVector d = load(directions[axis], i, lanes);
+                double low = centers[axis] - halfSideLength;
+                double high = centers[axis] + halfSideLength;
+
+                VectorMask<Double> parallel = d.abs().compare(VectorOperators.LT, 1e-6);
+                VectorMask<Double> outside = o.compare(VectorOperators.LT, low).or(o.compare(VectorOperators.GT, high));
+                miss = miss.or(parallel.and(outside));
+
+                DoubleVector t1 = DoubleVector.broadcast(SPECIES, low).sub(o).div(d);
+                DoubleVector t2 = DoubleVector.broadcast(SPECIES, high).sub(o).div(d);
+                tNear = tNear.blend(tNear.max(t1.min(t2)), parallel.not());
+                tFar = tFar.blend(tFar.min(t1.max(t2)), parallel.not());
+            }
+            miss = miss.or(tNear.compare(VectorOperators.GT, tFar)).or(tFar.compare(VectorOperators.LT, tMin))
+                    .or(tNear.compare(VectorOperators.GT, tMax));
+
+            VectorMask<Double> hit = miss.not();
+            VectorMask<Double> nearHit = hit.and(tNear.compare(VectorOperators.GE, tMin));
+            VectorMask<Double> farHit = hit.and(tFar.compare(VectorOperators.LE, tMax));
+            DoubleVector result = DoubleVector.broadcast(SPECIES, Shape.NO_HIT).blend(tFar, farHit).blend(tNear,
+                    nearHit);
+            store(result, out, i, lanes);
+        }
+    }
+
+    /**
+     * Loads the lanes from index i on, without a mask if the array is long
+     * enough, which is the case for the padded arrays of {@link RayPacket}
+     */
+    private static DoubleVector load(double[] array, int i, VectorMask<Double> lanes) {
+        return i + SPECIES.length() <= array.length ? DoubleVector.fromArray(SPECIES, array, i)
+                : DoubleVector.fromArray(SPECIES, array, i, lanes);
+    }
+
+    private static void store(DoubleVector vector, double[] array, int i, VectorMask<Double> lanes) {
+        if (i + SPECIES.length() <= array.length)
+            vector.intoArray(array, i);
+        else
+            vector.intoArray(array, i, lanes);
+    }
+
+    private static VectorMask<Double> within(DoubleVector t, double tMin, DoubleVector tMax) {
+        return t.compare(VectorOperators.GE, tMin).and(t.compare(VectorOperators.LE, tMax));
+    }
+}
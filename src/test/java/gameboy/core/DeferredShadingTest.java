@@ -0,0 +1,98 @@
+package gameboy.core;
+
+import static gameboy.core.TestScenes.HEIGHT;
+import static gameboy.core.TestScenes.WIDTH;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import gameboy.geometries.Sphere;
+import gameboy.lights.ShadowMaps;
+import gameboy.utilities.Color;
+import gameboy.utilities.Scene;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Re-shading the primary hits kept in the {@code GBuffer} after a light or
+ * material edit has to give the same image as tracing the edited scene again
+ */
+class DeferredShadingTest {
+
+    private static void editShading(Scene scene, int step) {
+        scene.getLights().get(0).setColor(new Color(step * 10, 100, 255 - step * 10));
+        scene.markChanged(scene.getLights().get(0));
+        scene.getShapes().get(2).getMaterial().setShininess(5 + step);
+        scene.markChanged(scene.getShapes().get(2));
+    }
+
+    private static BufferedImage fresh(Scene scene, boolean shadowMaps) {
+        Renderer renderer = new Renderer(scene, WIDTH, HEIGHT);
+        if (shadowMaps)
+            renderer.setShadowMaps(new ShadowMaps(128));
+        return renderer.render(1);
+    }
+
+    private static void assertReshadeEqualsFreshRender(boolean shadowMaps) {
+        Scene scene = TestScenes.create();
+        Renderer deferred = new Renderer(scene, WIDTH, HEIGHT);
+        deferred.setDeferredShading(true);
+        if (shadowMaps)
+            deferred.setShadowMaps(new ShadowMaps(128));
+        BufferedImage image = deferred.createFrame();
+        deferred.render(1, image);
+
+        for (int step = 0; step < 3; step++) {
+            editShading(scene, step);
+            assertTrue(deferred.canReshade(), "shading edit dropped the G-buffer");
+            deferred.render(1, image);
+
+            Scene reference = TestScenes.create();
+            for (int i = 0; i <= step; i++) {
+                editShading(reference, i);
+            }
+            TestScenes.assertSameImage(fresh(reference, shadowMaps), image);
+        }
+    }
+
+    @Test
+    void reshadeEqualsFreshRender() {
+        assertReshadeEqualsFreshRender(false);
+    }
+
+    @Test
+    void reshadeWithShadowMapsEqualsFreshRender() {
+        assertReshadeEqualsFreshRender(true);
+    }
+
+    @Test
+    void movedShapeIsTracedAgain() {
+        Scene scene = TestScenes.create();
+        Renderer deferred = new Renderer(scene, WIDTH, HEIGHT);
+        deferred.setDeferredShading(true);
+        BufferedImage image = deferred.createFrame();
+        deferred.render(1, image);
+
+        ((Sphere) scene.getShapes().get(1)).setRadius(2);
+        assertFalse(deferred.canReshade(), "G-buffer kept after the geometry changed");
+        deferred.render(1, image);
+
+        Scene reference = TestScenes.create();
+        ((Sphere) reference.getShapes().get(1)).setRadius(2);
+        TestScenes.assertSameImage(fresh(reference, false), image);
+    }
+
+    @Test
+    void movedCameraIsTracedAgain() {
+        Scene scene = TestScenes.create();
+        Renderer deferred = new Renderer(scene, WIDTH, HEIGHT);
+        deferred.setDeferredShading(true);
+        BufferedImage image = deferred.createFrame();
+        deferred.render(1, image);
+
+        scene.getCurrentCamera().translate(new Vector3(0.5, 0, 0));
+        assertFalse(deferred.canReshade(), "G-buffer kept after the camera moved");
+    }
+}
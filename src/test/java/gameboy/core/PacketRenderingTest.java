@@ -0,0 +1,67 @@
+package gameboy.core;
+
+import static gameboy.core.TestScenes.HEIGHT;
+import static gameboy.core.TestScenes.WIDTH;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import gameboy.utilities.math.PacketKernel;
+import gameboy.utilities.math.ScalarPacketKernel;
+
+/**
+ * Tracing primary rays in packets has to give the same image as tracing them
+ * one by one, with every available {@code PacketKernel}. The Vector API kernel
+ * is available when the tests run with it, which the {@code vector-api} build
+ * profile does in a second run that sets {@code gameboy.vectorKernel}
+ */
+class PacketRenderingTest {
+
+    private static Set<PacketKernel> kernels() {
+        Set<PacketKernel> kernels = new LinkedHashSet<>();
+        kernels.add(ScalarPacketKernel.INSTANCE);
+        kernels.add(PacketKernel.getDefault());
+        if (Boolean.getBoolean("gameboy.vectorKernel"))
+            assertEquals(2, kernels.size(), "Vector API kernel not loaded");
+        return kernels;
+    }
+
+    private static Renderer singleRays() {
+        Renderer renderer = new Renderer(TestScenes.create(), WIDTH, HEIGHT);
+        renderer.setPacketKernel(null);
+        return renderer;
+    }
+
+    @Test
+    void packetsEqualSingleRays() {
+        for (double resolution : new double[] {
+                1, 0.5, 0.25
+        }) {
+            BufferedImage expected = singleRays().render(resolution);
+            for (PacketKernel kernel : kernels()) {
+                Renderer renderer = new Renderer(TestScenes.create(), WIDTH, HEIGHT);
+                renderer.setPacketKernel(kernel);
+                TestScenes.assertSameImage(expected, renderer.render(resolution));
+            }
+        }
+    }
+
+    @Test
+    void refinedPacketsEqualSingleRays() {
+        BufferedImage expected = singleRays().render(1);
+        for (PacketKernel kernel : kernels()) {
+            Renderer renderer = new Renderer(TestScenes.create(), WIDTH, HEIGHT);
+            renderer.setPacketKernel(kernel);
+            BufferedImage image = renderer.createFrame();
+            while (!renderer.isRefined()) {
+                renderer.refine(8, image);
+            }
+            TestScenes.assertSameImage(expected, image);
+        }
+    }
+}
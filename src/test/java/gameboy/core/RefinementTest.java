@@ -0,0 +1,51 @@
+package gameboy.core;
+
+import static gameboy.core.TestScenes.HEIGHT;
+import static gameboy.core.TestScenes.WIDTH;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Progressive refinement has to end in the same image as a full render
+ */
+class RefinementTest {
+
+    private static BufferedImage refine(Renderer renderer, int coarseBlockSize) {
+        BufferedImage image = renderer.createFrame();
+        int passes = 0;
+        while (!renderer.isRefined()) {
+            renderer.refine(coarseBlockSize, image);
+            assertTrue(++passes <= 32, "refinement does not end");
+        }
+        return image;
+    }
+
+    @Test
+    void refinedImageEqualsFullRender() {
+        BufferedImage expected = new Renderer(TestScenes.create(), WIDTH, HEIGHT).render(1);
+        for (int blockSize : new int[] {
+                1, 3, 8, 16
+        }) {
+            Renderer renderer = new Renderer(TestScenes.create(), WIDTH, HEIGHT);
+            TestScenes.assertSameImage(expected, refine(renderer, blockSize));
+        }
+    }
+
+    @Test
+    void resetRefinementStartsOver() {
+        Renderer renderer = new Renderer(TestScenes.create(), WIDTH, HEIGHT);
+        refine(renderer, 8);
+        renderer.getScene().getCurrentCamera().translate(new Vector3(0.5, 0, 0));
+        renderer.resetRefinement();
+        BufferedImage refined = refine(renderer, 8);
+
+        Renderer reference = new Renderer(TestScenes.create(), WIDTH, HEIGHT);
+        reference.getScene().getCurrentCamera().translate(new Vector3(0.5, 0, 0));
+        TestScenes.assertSameImage(reference.render(1), refined);
+    }
+}
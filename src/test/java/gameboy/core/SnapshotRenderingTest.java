@@ -0,0 +1,113 @@
+package gameboy.core;
+
+import static gameboy.core.TestScenes.HEIGHT;
+import static gameboy.core.TestScenes.WIDTH;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import gameboy.geometries.Cube;
+import gameboy.geometries.Sphere;
+import gameboy.materials.BasicMaterial;
+import gameboy.utilities.Color;
+import gameboy.utilities.Scene;
+import gameboy.utilities.Shape;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Editing a {@code Scene} through {@link Scene#submit(Runnable)} and rendering
+ * its snapshots has to give the same images as editing and rendering it
+ * directly, and snapshots taken before an edit must not see it
+ */
+class SnapshotRenderingTest {
+
+    /** Edits applied in order, each followed by a frame */
+    private static final Consumer<Scene>[] EDITS = edits();
+
+    @SuppressWarnings("unchecked")
+    private static Consumer<Scene>[] edits() {
+        return new Consumer[] {
+                (Consumer<Scene>) scene -> ((Sphere) scene.getShapes().get(1)).setRadius(1.8),
+                (Consumer<Scene>) scene -> scene.getShapes().get(2).setAnchor(new Vector3(-4, 1, 1)),
+                (Consumer<Scene>) scene -> {
+                    Shape shape = scene.getShapes().get(0);
+                    shape.getMaterial().setShininess(12);
+                    scene.markChanged(shape);
+                },
+                (Consumer<Scene>) scene -> {
+                    scene.getLights().get(1).setColor(new Color(255, 120, 0));
+                    scene.markChanged(scene.getLights().get(1));
+                },
+                (Consumer<Scene>) scene -> scene.getLights().get(2).setAnchor(new Vector3(1, 4, -7)),
+                (Consumer<Scene>) scene -> scene.getCurrentCamera().translate(new Vector3(0.3, 0.1, 0)),
+                (Consumer<Scene>) scene -> {
+                    for (Shape shape : scene.getShapes()) {
+                        shape.getMaterial().setReflectivity(0.2);
+                    }
+                    scene.markChanged();
+                },
+                (Consumer<Scene>) scene -> scene.addShape(new Cube(new Vector3(2, 3, 4), new BasicMaterial(Color.RED), 1)),
+                (Consumer<Scene>) scene -> ((Cube) scene.getShapes().get(6)).setSideLength(2),
+        };
+    }
+
+    private static void assertSnapshotsEqualDirectEdits(boolean deferredShading) {
+        Scene scene = TestScenes.create();
+        Renderer snapshots = new Renderer(scene.snapshot(), WIDTH, HEIGHT);
+        snapshots.setDeferredShading(deferredShading);
+        BufferedImage image = snapshots.createFrame();
+        snapshots.render(1, image);
+
+        Scene direct = TestScenes.create();
+        Renderer reference = new Renderer(direct, WIDTH, HEIGHT);
+        for (Consumer<Scene> edit : EDITS) {
+            scene.submit(() -> edit.accept(scene));
+            scene.applyEdits();
+            snapshots.setScene(scene.snapshot());
+            snapshots.render(1, image);
+
+            edit.accept(direct);
+            TestScenes.assertSameImage(reference.render(1), image);
+        }
+    }
+
+    @Test
+    void snapshotEditsEqualDirectEdits() {
+        assertSnapshotsEqualDirectEdits(false);
+    }
+
+    @Test
+    void deferredSnapshotEditsEqualDirectEdits() {
+        assertSnapshotsEqualDirectEdits(true);
+    }
+
+    @Test
+    void snapshotsDoNotSeeLaterEdits() {
+        Scene scene = TestScenes.create();
+        Scene before = scene.snapshot();
+        BufferedImage expected = new Renderer(before, WIDTH, HEIGHT).render(1);
+
+        for (Consumer<Scene> edit : EDITS) {
+            scene.submit(() -> edit.accept(scene));
+            scene.applyEdits();
+            scene.snapshot();
+        }
+        TestScenes.assertSameImage(expected, new Renderer(before, WIDTH, HEIGHT).render(1));
+        TestScenes.assertSameImage(expected, new Renderer(TestScenes.create(), WIDTH, HEIGHT).render(1));
+    }
+
+    @Test
+    void unchangedSceneKeepsItsSnapshot() {
+        Scene scene = TestScenes.create();
+        Scene snapshot = scene.snapshot();
+        assertSame(snapshot, scene.snapshot());
+        assertSame(snapshot, snapshot.snapshot());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.getShapes().remove(0));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.submit(() -> {
+        }));
+    }
+}
@@ -0,0 +1,78 @@
+package gameboy.core;
+
+import static gameboy.core.TestScenes.HEIGHT;
+import static gameboy.core.TestScenes.WIDTH;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Frames rendered with a {@code TemporalCache} whose size or block size
+ * changes between frames, like frames of the dynamic resolution or a resized
+ * window, have to render as if there was no cache while the camera stands still
+ */
+class TemporalCacheTest {
+
+    private static BufferedImage fresh(int width, int height, double resolution) {
+        return new Renderer(TestScenes.create(), width, height).render(resolution);
+    }
+
+    private static Renderer cached() {
+        Renderer renderer = new Renderer(TestScenes.create(), WIDTH, HEIGHT);
+        renderer.setTemporalCache(new TemporalCache(4));
+        return renderer;
+    }
+
+    @Test
+    void sizeChangesKeepRendering() {
+        Renderer renderer = cached();
+        int[][] sizes = {
+                {
+                        WIDTH, HEIGHT
+                }, {
+                        WIDTH / 2, HEIGHT / 2
+                }, {
+                        WIDTH, HEIGHT
+                }, {
+                        WIDTH, HEIGHT
+                }
+        };
+        for (int[] size : sizes) {
+            renderer.setSize(size[0], size[1]);
+            TestScenes.assertSameImage(fresh(size[0], size[1], 1), renderer.render(1, renderer.createFrame()));
+        }
+    }
+
+    @Test
+    void blockSizeChangesKeepRendering() {
+        Renderer renderer = cached();
+        for (double resolution : new double[] {
+                1, 0.5, 1, 1
+        }) {
+            TestScenes.assertSameImage(fresh(WIDTH, HEIGHT, resolution), renderer.render(resolution));
+        }
+    }
+
+    @Test
+    void refinementAfterSizeChangesKeepsRendering() {
+        Renderer renderer = cached();
+        int[][] sizes = {
+                {
+                        WIDTH, HEIGHT
+                }, {
+                        WIDTH * 3 / 4, HEIGHT * 3 / 4
+                }, {
+                        WIDTH, HEIGHT
+                }
+        };
+        for (int[] size : sizes) {
+            renderer.setSize(size[0], size[1]);
+            BufferedImage image = renderer.createFrame();
+            while (!renderer.isRefined()) {
+                renderer.refine(8, image);
+            }
+            TestScenes.assertSameImage(fresh(size[0], size[1], 1), image);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package gameboy.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import gameboy.geometries.Cone;
+import gameboy.geometries.Cube;
+import gameboy.geometries.Plane;
+import gameboy.geometries.Sphere;
+import gameboy.lights.Light;
+import gameboy.materials.BasicMaterial;
+import gameboy.materials.CheckerMaterial;
+import gameboy.materials.CubeMaterial;
+import gameboy.materials.MirrorMaterial;
+import gameboy.materials.SphereMaterial;
+import gameboy.utilities.Camera;
+import gameboy.utilities.Color;
+import gameboy.utilities.Scene;
+import gameboy.utilities.Shape;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Scene and image comparison shared by the rendering tests
+ */
+final class TestScenes {
+
+    static final int WIDTH = 160;
+    static final int HEIGHT = 100;
+
+    private TestScenes() {
+    }
+
+    /**
+     * Creates a {@code Scene} with every shape type, a mirror, a reflective
+     * shape, a checker floor and three colored lights
+     *
+     * @return new {@code Scene}
+     */
+    static Scene create() {
+        BasicMaterial reflective = new BasicMaterial(new Color(200, 100, 50));
+        reflective.setReflectivity(0.4);
+        List<Shape> shapes = new ArrayList<>();
+        shapes.add(new Sphere(new Vector3(0, 0, 0), new SphereMaterial(), 2));
+        shapes.add(new Sphere(new Vector3(4, 1, 2), reflective, 1.5));
+        shapes.add(new Cube(new Vector3(-4, 0, 1), new CubeMaterial(), 2));
+        shapes.add(new Cube(new Vector3(-1, -3, -3), new MirrorMaterial(), 1.5));
+        shapes.add(new Cone(new Vector3(3, -3, -2), new BasicMaterial(new Color(30, 200, 30)), new Vector3(0, 1, 0),
+                Math.toRadians(20), 3));
+        shapes.add(new Plane(new Vector3(0, -5, 0), new CheckerMaterial(Color.BLACK, Color.WHITE, 4),
+                new Vector3(0, 1, 0)));
+
+        List<Light> lights = new ArrayList<>();
+        lights.add(new Light(new Vector3(-5, 10, -5), Color.BLUE));
+        lights.add(new Light(new Vector3(5, 10, -5), Color.GREEN));
+        lights.add(new Light(new Vector3(0, 3, -8), new Color(255, 200, 200)));
+
+        List<Camera> cameras = new ArrayList<>();
+        cameras.add(new Camera(new Vector3(0, 2, -10), Math.toRadians(40)));
+        return new Scene(cameras, shapes, lights);
+    }
+
+    /**
+     * Asserts that both images have the same pixels
+     */
+    static void assertSameImage(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int differing = 0;
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                if (expected.getRGB(x, y) != actual.getRGB(x, y))
+                    differing++;
+            }
+        }
+        assertEquals(0, differing, "differing pixels");
+    }
+}
@@ -0,0 +1,190 @@
+package gameboy.utilities.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import gameboy.geometries.Cone;
+import gameboy.geometries.Cube;
+import gameboy.geometries.Plane;
+import gameboy.geometries.Sphere;
+import gameboy.materials.BasicMaterial;
+import gameboy.utilities.Camera;
+import gameboy.utilities.Color;
+import gameboy.utilities.Scene;
+import gameboy.utilities.Shape;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Checks that a {@code BVH} refit around moved and resized shapes, or copied
+ * with replaced shapes, casts the same rays as one built from scratch
+ */
+class BVHTest {
+
+    private static final int SHAPES = 300;
+    private static final int EDITS = 100;
+    private static final int RAYS = 500;
+
+    private final Random random = new Random(7);
+    private final BasicMaterial material = new BasicMaterial(Color.WHITE);
+
+    @Test
+    void refitCastsLikeRebuild() {
+        List<Shape> shapes = shapes();
+        BVH bvh = new BVH(shapes);
+        for (int i = 0; i < EDITS; i++) {
+            Shape shape = shapes.get(pick(shapes, i));
+            edit(shape);
+            BVH refit = bvh.refit(shape);
+            assertNotNull(refit, "refit of " + shape);
+            assertEquals(bvh.getRefitCount() + 1, refit.getRefitCount());
+            bvh = refit;
+            assertSameHits(new BVH(shapes), bvh);
+        }
+    }
+
+    @Test
+    void replaceCastsLikeRebuild() {
+        List<Shape> shapes = shapes();
+        BVH bvh = new BVH(shapes);
+        for (int i = 0; i < EDITS / 10; i++) {
+            Map<Shape, Shape> replacements = new HashMap<>();
+            for (int j = 0; replacements.size() < 10; j++) {
+                int index = pick(shapes, j);
+                if (replacements.containsValue(shapes.get(index)))
+                    continue;
+                Shape replacement = shapes.get(index).copy();
+                edit(replacement);
+                replacements.put(shapes.get(index), replacement);
+                shapes.set(index, replacement);
+            }
+            BVH copy = bvh.replace(replacements, true);
+            assertNotNull(copy);
+            assertSame(replacements, copy.getReplacements(bvh));
+            bvh = copy;
+            assertSameHits(new BVH(shapes), bvh);
+        }
+    }
+
+    @Test
+    void sceneRebuildsAfterAsManyRefitsAsShapes() {
+        List<Shape> shapes = shapes();
+        Scene scene = new Scene(new Camera(new Vector3(0, 0, -30), Math.toRadians(60)), shapes);
+        BVH first = scene.getBVH();
+        assertEquals(0, first.getRefitCount());
+
+        BVH previous = first;
+        for (int i = 1; i <= shapes.size(); i++) {
+            move(shapes.get(pick(shapes, i)));
+            BVH current = scene.getBVH();
+            assertNotSame(previous, current);
+            assertEquals(i, current.getRefitCount(), "refits");
+            if (i % 50 == 0)
+                assertSameHits(new BVH(shapes), current);
+            previous = current;
+        }
+
+        move(shapes.get(0));
+        BVH rebuilt = scene.getBVH();
+        assertEquals(0, rebuilt.getRefitCount(), "refits after the rebuild");
+        assertSameHits(new BVH(shapes), rebuilt);
+    }
+
+    /**
+     * Gets the index of the shape to edit in round i, every tenth one of the
+     * unbounded planes at the end of shapes
+     */
+    private int pick(List<Shape> shapes, int i) {
+        return i % 10 == 0 ? shapes.size() - 1 - random.nextInt(2) : random.nextInt(shapes.size());
+    }
+
+    /**
+     * Moves shape, and resizes or turns it where it has a setter for it
+     */
+    private void edit(Shape shape) {
+        move(shape);
+        if (shape instanceof Sphere)
+            ((Sphere) shape).setRadius(0.2 + random.nextDouble() * 2);
+        else if (shape instanceof Cube)
+            ((Cube) shape).setSideLength(0.2 + random.nextDouble() * 3);
+        else if (shape instanceof Plane)
+            ((Plane) shape).setAxis(direction());
+    }
+
+    private void move(Shape shape) {
+        Vector3 anchor = shape.getAnchor();
+        shape.setAnchor(new Vector3(anchor.x + random.nextGaussian() * 3, anchor.y + random.nextGaussian() * 3,
+                anchor.z + random.nextGaussian() * 3));
+    }
+
+    /**
+     * Asserts that both hierarchies find the same closest hits and occluders
+     */
+    private void assertSameHits(BVH expected, BVH actual) {
+        assertEquals(expected.getShapeCount(), actual.getShapeCount(), "shapes");
+        int hits = 0;
+        for (int i = 0; i < RAYS; i++) {
+            Ray ray = new Ray(point(40), direction());
+            double tMin = random.nextInt(4) == 0 ? random.nextDouble() * 10 : 0;
+            double tMax = tMin + random.nextDouble() * 80;
+            RayHit expectedHit = expected.cast(ray, tMin, tMax);
+            RayHit actualHit = actual.cast(ray, tMin, tMax);
+            if (expectedHit == null) {
+                assertNull(actualHit, ray + " hits " + (actualHit != null ? actualHit.getShape() : null));
+            }
+            else {
+                assertNotNull(actualHit, ray + " misses " + expectedHit.getShape());
+                assertSame(expectedHit.getShape(), actualHit.getShape(), ray.toString());
+                assertEquals(expectedHit.getDistance(), actualHit.getDistance(), ray.toString());
+                hits++;
+            }
+            assertEquals(expectedHit != null, actual.findOccluder(ray, tMin, tMax, null) != null,
+                    "occluder of " + ray);
+        }
+        assertTrue(hits > RAYS / 10, hits + " hits");
+    }
+
+    private List<Shape> shapes() {
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < SHAPES; i++) {
+            Vector3 anchor = point(30);
+            switch (i % 3) {
+            case 0:
+                shapes.add(new Sphere(anchor, material, 0.2 + random.nextDouble() * 2));
+                break;
+            case 1:
+                shapes.add(new Cube(anchor, material, 0.2 + random.nextDouble() * 3));
+                break;
+            default:
+                shapes.add(new Cone(anchor, material, direction(), Math.toRadians(10 + random.nextDouble() * 30),
+                        1 + random.nextDouble() * 3));
+            }
+        }
+        // Unbounded, so they are refit outside of the leaves
+        shapes.add(new Plane(new Vector3(0, -35, 0), material, new Vector3(0, 1, 0)));
+        shapes.add(new Plane(new Vector3(0, 0, 45), material, new Vector3(0, 0, -1)));
+        return shapes;
+    }
+
+    private Vector3 point(double extent) {
+        return new Vector3((random.nextDouble() * 2 - 1) * extent, (random.nextDouble() * 2 - 1) * extent,
+                (random.nextDouble() * 2 - 1) * extent);
+    }
+
+    private Vector3 direction() {
+        return new Vector3(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).normalizeLocal();
+    }
+}
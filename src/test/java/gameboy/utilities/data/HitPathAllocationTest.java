@@ -0,0 +1,207 @@
+package gameboy.utilities.data;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import gameboy.geometries.Cone;
+import gameboy.geometries.Cube;
+import gameboy.geometries.Plane;
+import gameboy.geometries.Sphere;
+import gameboy.lights.Light;
+import gameboy.lights.Lighting;
+import gameboy.materials.BasicMaterial;
+import gameboy.utilities.Camera;
+import gameboy.utilities.Color;
+import gameboy.utilities.GlobalSettings;
+import gameboy.utilities.Scene;
+import gameboy.utilities.Shape;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Measures the bytes allocated by the intersection tests that every traced ray
+ * runs, which should allocate nothing but the {@code RayHit} of the closest hit,
+ * and by shading, which should allocate nothing but the reflected rays and
+ * their hits
+ */
+class HitPathAllocationTest {
+
+    private static final int WARMUP = 200;
+    /** Bytes a batch may allocate without calling the path allocating */
+    private static final long TOLERANCE = 1024;
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static Ray[] rays;
+
+    @BeforeAll
+    static void setUp() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Random random = new Random(3);
+        rays = new Ray[1000];
+        for (int i = 0; i < rays.length; i++) {
+            Vector3 direction = new Vector3(random.nextDouble() - 0.5, random.nextDouble() - 0.5, 1);
+            rays[i] = new Ray(new Vector3(0, 0, -10), direction);
+        }
+    }
+
+    private static long allocatedBytes() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    void shapesIntersectWithoutAllocating() {
+        BasicMaterial material = new BasicMaterial(Color.WHITE);
+        Shape[] shapes = {
+                new Sphere(new Vector3(0, 0, 5), material, 4), new Cube(new Vector3(0, 0, 5), material, 6),
+                new Plane(new Vector3(0, 0, 20), material, new Vector3(0, 0, -1)),
+                new Cone(new Vector3(0, 3, 5), material, new Vector3(0, -1, 0), Math.toRadians(30), 6)
+        };
+        for (Shape shape : shapes) {
+            int hits = 0;
+            for (int i = 0; i < WARMUP; i++) {
+                hits = intersect(shape);
+            }
+            long before = allocatedBytes();
+            hits = intersect(shape);
+            long allocated = allocatedBytes() - before;
+            assertTrue(hits > 0, shape + " is never hit");
+            assertTrue(allocated < TOLERANCE, shape + " allocated " + allocated + " bytes for " + rays.length + " rays");
+        }
+    }
+
+    private static int intersect(Shape shape) {
+        int hits = 0;
+        for (Ray ray : rays) {
+            if (shape.intersect(ray, 0, Double.POSITIVE_INFINITY) != Shape.NO_HIT)
+                hits++;
+        }
+        return hits;
+    }
+
+    @Test
+    void findOccluderDoesNotAllocate() {
+        BVH bvh = new BVH(scene());
+        int occluded = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            occluded = findOccluders(bvh);
+        }
+        long before = allocatedBytes();
+        occluded = findOccluders(bvh);
+        long allocated = allocatedBytes() - before;
+        assertTrue(occluded > 0, "no ray is occluded");
+        assertTrue(allocated < TOLERANCE, "allocated " + allocated + " bytes for " + rays.length + " rays");
+    }
+
+    private static int findOccluders(BVH bvh) {
+        int occluded = 0;
+        for (Ray ray : rays) {
+            if (bvh.findOccluder(ray, 0, 200, null) != null)
+                occluded++;
+        }
+        return occluded;
+    }
+
+    @Test
+    void castAllocatesOnlyTheHit() {
+        BVH bvh = new BVH(scene());
+        int hits = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            hits = cast(bvh);
+        }
+        long before = allocatedBytes();
+        hits = cast(bvh);
+        long allocated = allocatedBytes() - before;
+        assertTrue(hits > 0, "no ray hits");
+        // A RayHit and its hit point
+        assertTrue(allocated < hits * 96L + TOLERANCE, "allocated " + allocated + " bytes for " + hits + " hits");
+    }
+
+    private static int cast(BVH bvh) {
+        int hits = 0;
+        for (Ray ray : rays) {
+            RayHit hit = bvh.cast(ray, 0, 200);
+            if (hit != null)
+                hits++;
+        }
+        return hits;
+    }
+
+    @Test
+    void shadingDoesNotAllocate() {
+        shade(scene(), 0);
+    }
+
+    @Test
+    void shadingAllocatesOnlyReflections() {
+        List<Shape> shapes = scene();
+        for (int i = 0; i < shapes.size(); i += 3) {
+            shapes.get(i).getMaterial().setReflectivity(0.5);
+        }
+        // Each bounce halves the weight of the path until it is too faint to follow
+        shade(shapes, (int) Math.ceil(Math.log(GlobalSettings.MIN_REFLECTION_CONTRIBUTION) / Math.log(0.5)));
+    }
+
+    /**
+     * Shades the hits of all rays with generic and compiled lighting, which may
+     * allocate bytes for at most bounces reflections of each hit
+     */
+    private static void shade(List<Shape> shapes, int bounces) {
+        List<Light> lights = new ArrayList<>();
+        lights.add(new Light(new Vector3(-30, 80, -20), Color.WHITE));
+        lights.add(new Light(new Vector3(40, 60, 10), new Color(255, 200, 100)));
+        Scene scene = new Scene(new Camera(new Vector3(0, 0, -10), Math.toRadians(60)), shapes, lights);
+        List<RayHit> hits = new ArrayList<>();
+        for (Ray ray : rays) {
+            RayHit hit = scene.getBVH().cast(ray, 0, 200);
+            if (hit != null)
+                hits.add(hit);
+        }
+        assertTrue(hits.size() > 0, "no ray hits");
+
+        for (Lighting lighting : new Lighting[] { Lighting.of(lights, null), Lighting.compile(lights, null) }) {
+            double[] radiance = new double[3];
+            for (int i = 0; i < WARMUP; i++) {
+                shade(hits, scene, lighting, radiance);
+            }
+            long before = allocatedBytes();
+            shade(hits, scene, lighting, radiance);
+            long allocated = allocatedBytes() - before;
+            // A reflected Ray with its origin and direction, its RayHit and hit point
+            long bound = hits.size() * bounces * 256L + TOLERANCE;
+            assertTrue(allocated < bound, lighting.getClass().getSimpleName() + " allocated " + allocated
+                    + " bytes for " + hits.size() + " hits");
+        }
+    }
+
+    private static void shade(List<RayHit> hits, Scene scene, Lighting lighting, double[] radiance) {
+        for (RayHit hit : hits) {
+            hit.getShape().getMaterial().shade(hit, scene, lighting, radiance);
+        }
+    }
+
+    private static List<Shape> scene() {
+        Random random = new Random(2);
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            Vector3 anchor = new Vector3(random.nextDouble() * 100 - 50, random.nextDouble() * 100 - 50,
+                    random.nextDouble() * 100);
+            BasicMaterial material = new BasicMaterial(Color.WHITE);
+            shapes.add(i % 2 == 0 ? new Sphere(anchor, material, 1) : new Cube(anchor, material, 1));
+        }
+        shapes.add(new Plane(new Vector3(0, -60, 0), new BasicMaterial(Color.WHITE), new Vector3(0, 1, 0)));
+        return shapes;
+    }
+}
@@ -0,0 +1,94 @@
+package gameboy.utilities.data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class PersistentArrayTest {
+
+    private static List<Integer> range(int length) {
+        List<Integer> elements = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            elements.add(i);
+        }
+        return elements;
+    }
+
+    @Test
+    void holdsElementsOfAnyLength() {
+        for (int length : new int[] {
+                0, 1, 31, 32, 33, 1024, 1025, 40000
+        }) {
+            List<Integer> elements = range(length);
+            PersistentArray<Integer> array = PersistentArray.of(elements);
+            assertEquals(length, array.length());
+            assertEquals(elements, array.asList());
+        }
+    }
+
+    @Test
+    void editLeavesSourceUnchanged() {
+        List<Integer> elements = range(5000);
+        PersistentArray<Integer> array = PersistentArray.of(elements);
+        PersistentArray.Editor<Integer> editor = array.edit();
+        editor.set(0, -1);
+        editor.set(4097, -2);
+        editor.set(4097, -3);
+        assertEquals(-3, editor.get(4097));
+        PersistentArray<Integer> edited = editor.done();
+
+        assertEquals(elements, array.asList());
+        List<Integer> expected = new ArrayList<>(elements);
+        expected.set(0, -1);
+        expected.set(4097, -3);
+        assertEquals(expected, edited.asList());
+    }
+
+    @Test
+    void doneWithoutChangesReturnsSource() {
+        PersistentArray<Integer> array = PersistentArray.of(range(100));
+        PersistentArray.Editor<Integer> editor = array.edit();
+        editor.get(50);
+        assertSame(array, editor.done());
+    }
+
+    @Test
+    void modifyCopiesOncePerEdit() {
+        List<double[]> chunks = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            chunks.add(new double[] {
+                    i
+            });
+        }
+        PersistentArray<double[]> array = PersistentArray.of(chunks);
+        PersistentArray.Editor<double[]> editor = array.edit();
+        double[] copy = editor.modify(70, double[]::clone);
+        assertNotSame(chunks.get(70), copy);
+        assertSame(copy, editor.modify(70, double[]::clone));
+        copy[0] = -1;
+        PersistentArray<double[]> edited = editor.done();
+
+        assertArrayEquals(new double[] {
+                70
+        }, array.get(70));
+        assertArrayEquals(new double[] {
+                -1
+        }, edited.get(70));
+        assertSame(array.get(69), edited.get(69));
+    }
+
+    @Test
+    void editorCannotBeUsedAfterDone() {
+        PersistentArray.Editor<Integer> editor = PersistentArray.of(range(10)).edit();
+        editor.done();
+        assertThrows(IllegalStateException.class, () -> editor.set(0, 1));
+        assertThrows(UnsupportedOperationException.class, () -> PersistentArray.of(range(10)).asList().set(0, 1));
+    }
+}
@@ -0,0 +1,175 @@
+package gameboy.utilities.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.Test;
+
+import gameboy.geometries.Cone;
+import gameboy.geometries.Cube;
+import gameboy.geometries.Plane;
+import gameboy.geometries.Sphere;
+import gameboy.materials.BasicMaterial;
+import gameboy.utilities.Color;
+import gameboy.utilities.Shape;
+import gameboy.utilities.math.Ray;
+import gameboy.utilities.math.RayHit;
+import gameboy.utilities.math.Vector3;
+
+/**
+ * Compares the flattened intersection tests of {@code ShapeArrays} with
+ * {@link Shape#intersect(Ray, double, double)} of the shapes they were copied
+ * from, for random shapes, rays and distance intervals
+ */
+class ShapeArraysTest {
+
+    private static final int SHAPES = 200;
+    private static final int RAYS = 200;
+
+    private final Random random = new Random(5);
+    private final BasicMaterial material = new BasicMaterial(Color.WHITE);
+
+    @Test
+    void spheresMatchSphereIntersect() {
+        assertSameDistances(anchor -> new Sphere(anchor, material, 0.5 + random.nextDouble() * 3));
+    }
+
+    @Test
+    void cubesMatchCubeIntersect() {
+        assertSameDistances(anchor -> new Cube(anchor, material, 0.5 + random.nextDouble() * 6));
+    }
+
+    @Test
+    void planesMatchPlaneIntersect() {
+        assertSameDistances(anchor -> new Plane(anchor, material, direction()));
+    }
+
+    /**
+     * Asserts that a group of each shape finds the same distance as the shape
+     * itself and is an occluder exactly if the shape is hit
+     */
+    private void assertSameDistances(Function<Vector3, Shape> shapes) {
+        int hits = 0;
+        int misses = 0;
+        for (int i = 0; i < SHAPES; i++) {
+            Shape shape = shapes.apply(point(5));
+            ShapeArrays group = new ShapeArrays(new Shape[] { shape }, 0, 1);
+            for (int j = 0; j < RAYS; j++) {
+                Ray ray = ray(shape.getAnchor());
+                double tMin = interval();
+                double tMax = tMin + interval();
+                double expected = shape.intersect(ray, tMin, tMax);
+
+                ShapeArrays.Query query = new ShapeArrays.Query();
+                query.set(ray, tMin, tMax);
+                group.intersect(query);
+                if (expected == Shape.NO_HIT) {
+                    assertNull(query.closestShape, shape + " hit by " + ray + " in " + tMin + ", " + tMax);
+                    misses++;
+                }
+                else {
+                    assertSame(shape, query.closestShape, shape + " missed by " + ray + " in " + tMin + ", " + tMax);
+                    assertEquals(expected, query.closest, shape + " and " + ray);
+                    hits++;
+                }
+
+                query.set(ray, tMin, tMax);
+                assertEquals(expected != Shape.NO_HIT, group.findOccluder(query, null) == shape,
+                        shape + " occluding " + ray + " in " + tMin + ", " + tMax);
+            }
+        }
+        // Both outcomes have to be common for the comparison to mean anything
+        assertTrue(hits > SHAPES * RAYS / 20, hits + " hits");
+        assertTrue(misses > SHAPES * RAYS / 20, misses + " misses");
+    }
+
+    @Test
+    void mixedGroupFindsClosestHit() {
+        List<Shape> shapes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            Vector3 anchor = point(20);
+            switch (i % 4) {
+            case 0:
+                shapes.add(new Sphere(anchor, material, 0.5 + random.nextDouble() * 2));
+                break;
+            case 1:
+                shapes.add(new Cube(anchor, material, 0.5 + random.nextDouble() * 4));
+                break;
+            case 2:
+                shapes.add(new Cone(anchor, material, direction(), Math.toRadians(10 + random.nextDouble() * 30),
+                        1 + random.nextDouble() * 4));
+                break;
+            default:
+                if (i % 8 == 3)
+                    shapes.add(new Plane(point(40), material, direction()));
+            }
+        }
+        ShapeArrays group = new ShapeArrays(shapes.toArray(new Shape[0]), 0, shapes.size());
+        assertEquals(shapes.size(), group.size());
+
+        int hits = 0;
+        for (int i = 0; i < SHAPES * RAYS / 10; i++) {
+            Ray ray = ray(point(20));
+            double tMin = interval();
+            double tMax = tMin + interval() * 4;
+            RayHit expected = ray.cast(shapes, tMin, tMax);
+
+            ShapeArrays.Query query = new ShapeArrays.Query();
+            query.set(ray, tMin, tMax);
+            group.intersect(query);
+            if (expected == null) {
+                assertNull(query.closestShape, ray + " in " + tMin + ", " + tMax);
+            }
+            else {
+                assertEquals(expected.getDistance(), query.closest, ray + " in " + tMin + ", " + tMax);
+                hits++;
+            }
+        }
+        assertTrue(hits > SHAPES * RAYS / 200, hits + " hits");
+    }
+
+    /**
+     * Gets a random point within extent of the origin on each axis
+     */
+    private Vector3 point(double extent) {
+        return new Vector3((random.nextDouble() * 2 - 1) * extent, (random.nextDouble() * 2 - 1) * extent,
+                (random.nextDouble() * 2 - 1) * extent);
+    }
+
+    /**
+     * Gets a random unit direction, every fourth one along an axis, which the
+     * slab and plane tests handle separately
+     */
+    private Vector3 direction() {
+        if (random.nextInt(4) == 0) {
+            int axis = random.nextInt(3);
+            double sign = random.nextBoolean() ? 1 : -1;
+            return new Vector3(axis == 0 ? sign : 0, axis == 1 ? sign : 0, axis == 2 ? sign : 0);
+        }
+        return new Vector3(random.nextGaussian(), random.nextGaussian(), random.nextGaussian()).normalizeLocal();
+    }
+
+    /**
+     * Gets a random {@code Ray} that passes close to target, starting up to 15
+     * units before or 5 units after it
+     */
+    private Ray ray(Vector3 target) {
+        Vector3 direction = direction();
+        Vector3 origin = target.add(point(3)).subtract(direction.scale(random.nextDouble() * 20 - 5));
+        return new Ray(origin, direction);
+    }
+
+    /**
+     * Gets a random interval length, 0 a tenth of the time
+     */
+    private double interval() {
+        return random.nextInt(10) == 0 ? 0 : random.nextDouble() * 15;
+    }
+}